@@ -50,12 +50,14 @@ import io.vram.modkeys.api.ModKey;
 
 import grondag.ab.building.block.init.FormedBlocks;
 import grondag.ab.storage.BinActionC2S;
+import grondag.ab.storage.TickWheel;
 import grondag.ab.storage.init.BinBlocks;
 import grondag.ab.storage.init.CrateBlocks;
 import grondag.ab.storage.init.MenuTypes;
 import grondag.ab.storage.init.PipeBlocks;
 import grondag.ab.storage.init.TankBlocks;
 import grondag.ab.storage.init.Textures;
+import grondag.ab.transport.PipeMultiBlock;
 import grondag.ab.varia.Base32Namer;
 import grondag.ab.varia.WorldTaskManager;
 import grondag.fluidity.impl.article.ArticleTypeRegistryImpl;
@@ -102,11 +104,23 @@ public abstract class Ability {
 		BLOCK_ENTITY_TYPES.register();
 		MENU_TYPES.register();
 
-		TickEvent.SERVER_POST.register(s -> WorldTaskManager.doServerTick());
+		TickEvent.SERVER_POST.register(s -> {
+			WorldTaskManager.doServerTick();
+			PipeMultiBlock.tickBatched();
+		});
+
+		TickEvent.SERVER_LEVEL_POST.register(WorldTaskManager::doLevelTick);
+		LifecycleEvent.SERVER_LEVEL_UNLOAD.register(WorldTaskManager::onLevelUnload);
+		TickEvent.SERVER_LEVEL_POST.register(TickWheel::tick);
+		LifecycleEvent.SERVER_LEVEL_UNLOAD.register(TickWheel::onLevelUnload);
 
 		LifecycleEvent.SERVER_BEFORE_START.register(s -> {
 			Base32Namer.loadBadNams(s.getResourceManager(), id("names/offensive.json"));
+			PipeMultiBlock.onServerStarting();
+			TickWheel.onServerStarting();
 		});
+
+		LifecycleEvent.SERVER_STOPPED.register(s -> PipeMultiBlock.onServerStopped());
 	}
 
 	public static ResourceLocation id(String name) {
@@ -43,8 +43,35 @@ public class AbilityConfig {
 		@Comment("Item transfer rate for category 1 universal transport bus. 1 to 1024")
 		public int utb1ItemsPerTick = 4;
 
+		@Comment("Item transfer rate for category 2 universal transport bus. 1 to 1024")
+		public int utb2ItemsPerTick = 64;
+
+		@Comment("Item transfer rate for category 3 universal transport bus. 1 to 1024")
+		public int utb3ItemsPerTick = 256;
+
 		@Comment("Tick frequency for category 1 importer. 1 to 20. Higher values can reduce server impact but may need higher bus transfer rates.")
 		public int utb1ImporterCooldownTicks = 5;
+
+		@Comment("Tick all item movers on a transport network in one batched pass instead of individually. Requires restart.")
+		public boolean batchMoverTicks = false;
+
+		@Comment("Ticks without progress before an idle importer or exporter sleeps until its target changes. 0 to 1200, 0 disables.")
+		public int moverSleepTicks = 100;
+
+		@Comment("Item lanes in each importer and exporter buffer. 1 to 8. More lanes let one article flush while others fill. Requires restart.")
+		public int bufferLanes = 1;
+
+		@Comment("Share transport bus bandwidth by weighted deficit round robin instead of rotation. Requires restart.")
+		public boolean fairShareBandwidth = false;
+
+		@Comment("Range in blocks that fluid extractors search for connected source blocks to drain. 0 drains only the block in front. 0 to 32.")
+		public int areaPumpRange = 0;
+
+		@Comment("Microseconds per tick for queued world tasks such as network updates. 100 to 20000. Unfinished work carries over to the next tick.")
+		public int taskBudgetMicros = 2000;
+
+		@Comment("Tick importers, exporters and creative crates on a timing wheel at their own period instead of every tick. Spreads them evenly across ticks. Requires restart.")
+		public boolean tickWheel = true;
 	}
 
 	public static final ConfigData DEFAULTS = new ConfigData();
@@ -58,7 +85,16 @@ public class AbilityConfig {
 	public static boolean shiftScreensLeftIfReiPresent = DEFAULTS.shiftScreensLeftIfReiPresent;
 	public static boolean useVanillaFonts = DEFAULTS.useVanillaFonts;
 	public static int utb1ItemsPerTick = DEFAULTS.utb1ItemsPerTick;
+	public static int utb2ItemsPerTick = DEFAULTS.utb2ItemsPerTick;
+	public static int utb3ItemsPerTick = DEFAULTS.utb3ItemsPerTick;
 	public static int utb1ImporterCooldownTicks = DEFAULTS.utb1ImporterCooldownTicks;
+	public static boolean batchMoverTicks = DEFAULTS.batchMoverTicks;
+	public static int moverSleepTicks = DEFAULTS.moverSleepTicks;
+	public static int bufferLanes = DEFAULTS.bufferLanes;
+	public static boolean fairShareBandwidth = DEFAULTS.fairShareBandwidth;
+	public static int areaPumpRange = DEFAULTS.areaPumpRange;
+	public static int taskBudgetMicros = DEFAULTS.taskBudgetMicros;
+	public static boolean tickWheel = DEFAULTS.tickWheel;
 
 	public static void initialize() {
 		configFile = new File(FabricLoader.getInstance().getConfigDir().toFile(), "ability.json5");
@@ -85,7 +121,16 @@ public class AbilityConfig {
 		shiftScreensLeftIfReiPresent = config.shiftScreensLeftIfReiPresent;
 		useVanillaFonts = config.useVanillaFonts;
 		utb1ItemsPerTick = config.utb1ItemsPerTick;
+		utb2ItemsPerTick = config.utb2ItemsPerTick;
+		utb3ItemsPerTick = config.utb3ItemsPerTick;
 		utb1ImporterCooldownTicks = config.utb1ImporterCooldownTicks;
+		batchMoverTicks = config.batchMoverTicks;
+		moverSleepTicks = config.moverSleepTicks;
+		bufferLanes = config.bufferLanes;
+		fairShareBandwidth = config.fairShareBandwidth;
+		areaPumpRange = config.areaPumpRange;
+		taskBudgetMicros = config.taskBudgetMicros;
+		tickWheel = config.tickWheel;
 	}
 
 	public static void saveConfig() {
@@ -94,7 +139,16 @@ public class AbilityConfig {
 		config.shiftScreensLeftIfReiPresent = shiftScreensLeftIfReiPresent;
 		config.useVanillaFonts = useVanillaFonts;
 		config.utb1ItemsPerTick = utb1ItemsPerTick;
+		config.utb2ItemsPerTick = utb2ItemsPerTick;
+		config.utb3ItemsPerTick = utb3ItemsPerTick;
 		config.utb1ImporterCooldownTicks = utb1ImporterCooldownTicks;
+		config.batchMoverTicks = batchMoverTicks;
+		config.moverSleepTicks = moverSleepTicks;
+		config.bufferLanes = bufferLanes;
+		config.fairShareBandwidth = fairShareBandwidth;
+		config.areaPumpRange = areaPumpRange;
+		config.taskBudgetMicros = taskBudgetMicros;
+		config.tickWheel = tickWheel;
 
 		try {
 			final String result = JANKSON.toJson(config).toJson(true, true, 0);
@@ -21,10 +21,19 @@
 package grondag.ab.client;
 
 import static grondag.ab.AbilityConfig.DEFAULTS;
+import static grondag.ab.AbilityConfig.areaPumpRange;
+import static grondag.ab.AbilityConfig.batchMoverTicks;
+import static grondag.ab.AbilityConfig.bufferLanes;
+import static grondag.ab.AbilityConfig.fairShareBandwidth;
+import static grondag.ab.AbilityConfig.moverSleepTicks;
 import static grondag.ab.AbilityConfig.shiftScreensLeftIfReiPresent;
+import static grondag.ab.AbilityConfig.taskBudgetMicros;
+import static grondag.ab.AbilityConfig.tickWheel;
 import static grondag.ab.AbilityConfig.useVanillaFonts;
 import static grondag.ab.AbilityConfig.utb1ImporterCooldownTicks;
 import static grondag.ab.AbilityConfig.utb1ItemsPerTick;
+import static grondag.ab.AbilityConfig.utb2ItemsPerTick;
+import static grondag.ab.AbilityConfig.utb3ItemsPerTick;
 
 import java.util.Arrays;
 import java.util.stream.Collectors;
@@ -77,6 +86,20 @@ public class ConfigScreen {
 				.setSaveConsumer(i -> utb1ItemsPerTick = i)
 				.build());
 
+		misc.addEntry(ENTRY_BUILDER
+				.startIntSlider(Component.translatable("config.ab.value.utb_cat2_rate"), utb2ItemsPerTick, 1, 1024)
+				.setDefaultValue(DEFAULTS.utb2ItemsPerTick)
+				.setTooltip(parse("config.ab.help.utb_cat2_rate"))
+				.setSaveConsumer(i -> utb2ItemsPerTick = i)
+				.build());
+
+		misc.addEntry(ENTRY_BUILDER
+				.startIntSlider(Component.translatable("config.ab.value.utb_cat3_rate"), utb3ItemsPerTick, 1, 1024)
+				.setDefaultValue(DEFAULTS.utb3ItemsPerTick)
+				.setTooltip(parse("config.ab.help.utb_cat3_rate"))
+				.setSaveConsumer(i -> utb3ItemsPerTick = i)
+				.build());
+
 		misc.addEntry(ENTRY_BUILDER
 				.startIntSlider(Component.translatable("config.ab.value.utb_cat1_import_cooldown"), utb1ImporterCooldownTicks, 1, 20)
 				.setDefaultValue(DEFAULTS.utb1ImporterCooldownTicks)
@@ -84,6 +107,59 @@ public class ConfigScreen {
 				.setSaveConsumer(i -> utb1ImporterCooldownTicks = i)
 				.build());
 
+		misc.addEntry(ENTRY_BUILDER
+				.startBooleanToggle(Component.translatable("config.ab.value.batch_mover_ticks"), batchMoverTicks)
+				.setDefaultValue(DEFAULTS.batchMoverTicks)
+				.setTooltip(parse("config.ab.help.batch_mover_ticks"))
+				.setSaveConsumer(b -> batchMoverTicks = b)
+				.requireRestart()
+				.build());
+
+		misc.addEntry(ENTRY_BUILDER
+				.startIntSlider(Component.translatable("config.ab.value.mover_sleep_ticks"), moverSleepTicks, 0, 1200)
+				.setDefaultValue(DEFAULTS.moverSleepTicks)
+				.setTooltip(parse("config.ab.help.mover_sleep_ticks"))
+				.setSaveConsumer(i -> moverSleepTicks = i)
+				.build());
+
+		misc.addEntry(ENTRY_BUILDER
+				.startIntSlider(Component.translatable("config.ab.value.buffer_lanes"), bufferLanes, 1, 8)
+				.setDefaultValue(DEFAULTS.bufferLanes)
+				.setTooltip(parse("config.ab.help.buffer_lanes"))
+				.setSaveConsumer(i -> bufferLanes = i)
+				.requireRestart()
+				.build());
+
+		misc.addEntry(ENTRY_BUILDER
+				.startBooleanToggle(Component.translatable("config.ab.value.fair_share_bandwidth"), fairShareBandwidth)
+				.setDefaultValue(DEFAULTS.fairShareBandwidth)
+				.setTooltip(parse("config.ab.help.fair_share_bandwidth"))
+				.setSaveConsumer(b -> fairShareBandwidth = b)
+				.requireRestart()
+				.build());
+
+		misc.addEntry(ENTRY_BUILDER
+				.startIntSlider(Component.translatable("config.ab.value.area_pump_range"), areaPumpRange, 0, 32)
+				.setDefaultValue(DEFAULTS.areaPumpRange)
+				.setTooltip(parse("config.ab.help.area_pump_range"))
+				.setSaveConsumer(i -> areaPumpRange = i)
+				.build());
+
+		misc.addEntry(ENTRY_BUILDER
+				.startIntSlider(Component.translatable("config.ab.value.task_budget_micros"), taskBudgetMicros, 100, 20000)
+				.setDefaultValue(DEFAULTS.taskBudgetMicros)
+				.setTooltip(parse("config.ab.help.task_budget_micros"))
+				.setSaveConsumer(i -> taskBudgetMicros = i)
+				.build());
+
+		misc.addEntry(ENTRY_BUILDER
+				.startBooleanToggle(Component.translatable("config.ab.value.tick_wheel"), tickWheel)
+				.setDefaultValue(DEFAULTS.tickWheel)
+				.setTooltip(parse("config.ab.help.tick_wheel"))
+				.setSaveConsumer(b -> tickWheel = b)
+				.requireRestart()
+				.build());
+
 		return builder.build();
 	}
 
@@ -0,0 +1,56 @@
+/*
+ * This file is part of Ability and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.ab.mixin;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+
+import grondag.ab.transport.item.DormantMovers;
+import grondag.ab.transport.util.ChangeStamped;
+
+@Mixin(BlockEntity.class)
+public abstract class MixinBlockEntity implements ChangeStamped {
+	@Unique
+	private int ab_changeStamp = 0;
+
+	@Inject(at = @At("HEAD"), method = "setChanged()V")
+	private void onSetChanged(CallbackInfo ci) {
+		++ab_changeStamp;
+	}
+
+	@Override
+	public int ab_changeStamp() {
+		return ab_changeStamp;
+	}
+
+	@Inject(at = @At("RETURN"), method = "setChanged(Lnet/minecraft/world/level/Level;Lnet/minecraft/core/BlockPos;Lnet/minecraft/world/level/block/state/BlockState;)V")
+	private static void onSetChanged(Level level, BlockPos pos, BlockState state, CallbackInfo ci) {
+		DormantMovers.onBlockEntityChanged(level, pos);
+	}
+}
@@ -0,0 +1,220 @@
+/*
+ * This file is part of Ability and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.ab.storage;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntity;
+
+import grondag.ab.AbilityConfig;
+
+/**
+ * Timing wheel that ticks {@link TickableBlockEntity} instances at their
+ * {@link TickableBlockEntity#tickPeriod() period} instead of every tick.
+ * Each level has its own wheel of {@link #SLOTS} slots.  A tick visits only
+ * the slot that is due, so entities that are not due cost nothing.
+ *
+ * <p>New entities go into the least-loaded slot within their first period.
+ * This spreads entities with the same period evenly across phases.  After each
+ * tick an entity is re-filed one period ahead, so periods may change from tick
+ * to tick.  A period of zero leaves the wheel until {@link #wake(BlockEntity)}.
+ *
+ * <p>Each entity's due tick is kept in a map, so it can be moved earlier by
+ * filing it again.  Slot entries that no longer match, including those of
+ * removed entities, are dropped when their slot comes up.
+ */
+public class TickWheel {
+	private static final int SLOTS = 64;
+	private static final int MASK = SLOTS - 1;
+	/** Longest period the wheel can represent. Longer periods are clamped. */
+	public static final int MAX_PERIOD = SLOTS - 1;
+
+	private static final Reference2ObjectOpenHashMap<Level, TickWheel> WHEELS = new Reference2ObjectOpenHashMap<>();
+	/** Config value latched at server start, so changes cannot leave entities ticked twice. */
+	private static boolean isEnabled = false;
+
+	@SuppressWarnings("unchecked")
+	private final ObjectArrayList<BlockEntity>[] slots = new ObjectArrayList[SLOTS];
+	/** Due tick of each scheduled entity. */
+	private final Reference2IntOpenHashMap<BlockEntity> dueTicks = new Reference2IntOpenHashMap<>();
+	/** Slot list swapped in while the due slot is processed so re-filed entities go to a fresh list. */
+	private ObjectArrayList<BlockEntity> spare = new ObjectArrayList<>();
+	private final Level level;
+	private int now = 0;
+
+	private TickWheel(Level level) {
+		this.level = level;
+		dueTicks.defaultReturnValue(Integer.MIN_VALUE);
+
+		for (int i = 0; i < SLOTS; ++i) {
+			slots[i] = new ObjectArrayList<>();
+		}
+	}
+
+	/** True if Ability tickable block entities should use the wheel instead of vanilla tickers.  Fixed while the server runs. */
+	public static boolean isEnabled() {
+		return isEnabled;
+	}
+
+	public static void onServerStarting() {
+		isEnabled = AbilityConfig.tickWheel;
+	}
+
+	/** Adds a block entity to its level's wheel.  Does nothing on the client or if already scheduled. */
+	public static void schedule(BlockEntity blockEntity) {
+		final Level level = blockEntity.getLevel();
+
+		if (level == null || level.isClientSide) {
+			return;
+		}
+
+		assert blockEntity instanceof TickableBlockEntity;
+		WHEELS.computeIfAbsent(level, TickWheel::new).add(blockEntity);
+	}
+
+	/**
+	 * Ticks the block entity on the next tick, whether it is waiting out a period or
+	 * left the wheel with a period of zero.  Does nothing on the client, or if the
+	 * level has no wheel because nothing was scheduled or the level has unloaded.
+	 */
+	public static void wake(BlockEntity blockEntity) {
+		final Level level = blockEntity.getLevel();
+
+		if (level == null || level.isClientSide || blockEntity.isRemoved()) {
+			return;
+		}
+
+		assert blockEntity instanceof TickableBlockEntity;
+		final TickWheel wheel = WHEELS.get(level);
+
+		if (wheel != null) {
+			wheel.expedite(blockEntity);
+		}
+	}
+
+	/** Takes a block entity off its level's wheel.  Never creates a wheel. */
+	public static void unschedule(BlockEntity blockEntity) {
+		final Level level = blockEntity.getLevel();
+		final TickWheel wheel = level == null ? null : WHEELS.get(level);
+
+		if (wheel != null) {
+			// the slot entry is dropped when its slot comes up
+			wheel.dueTicks.removeInt(blockEntity);
+		}
+	}
+
+	/** Runs the due slot for the level.  Call once per level tick. */
+	public static void tick(Level level) {
+		final TickWheel wheel = WHEELS.get(level);
+
+		if (wheel != null) {
+			wheel.tick();
+		}
+	}
+
+	public static void onLevelUnload(Level level) {
+		WHEELS.remove(level);
+	}
+
+	private void file(BlockEntity blockEntity, int dueTick) {
+		dueTicks.put(blockEntity, dueTick);
+		slots[dueTick & MASK].add(blockEntity);
+	}
+
+	private void add(BlockEntity blockEntity) {
+		if (dueTicks.containsKey(blockEntity)) {
+			return;
+		}
+
+		// least-loaded phase within the first period
+		final int period = Math.max(1, Math.min(MAX_PERIOD, ((TickableBlockEntity) blockEntity).tickPeriod()));
+		int best = now + 1;
+		int bestSize = slots[best & MASK].size();
+
+		for (int i = 2; i <= period && bestSize > 0; ++i) {
+			final int size = slots[(now + i) & MASK].size();
+
+			if (size < bestSize) {
+				best = now + i;
+				bestSize = size;
+			}
+		}
+
+		file(blockEntity, best);
+	}
+
+	private void expedite(BlockEntity blockEntity) {
+		final int next = now + 1;
+
+		// an entity ticking right now is re-filed after its tick
+		if (!dueTicks.containsKey(blockEntity) || dueTicks.getInt(blockEntity) > next) {
+			file(blockEntity, next);
+		}
+	}
+
+	private void tick() {
+		final int index = ++now & MASK;
+		final ObjectArrayList<BlockEntity> due = slots[index];
+
+		if (due.isEmpty()) {
+			return;
+		}
+
+		slots[index] = spare;
+		final Object[] elements = due.elements();
+		final int limit = due.size();
+
+		for (int i = 0; i < limit; ++i) {
+			final BlockEntity blockEntity = (BlockEntity) elements[i];
+
+			// moved earlier, already ticked or no longer scheduled
+			if (dueTicks.getInt(blockEntity) != now) {
+				continue;
+			}
+
+			if (blockEntity.isRemoved() || blockEntity.getLevel() != level) {
+				dueTicks.removeInt(blockEntity);
+				continue;
+			}
+
+			final TickableBlockEntity tickable = (TickableBlockEntity) blockEntity;
+
+			// like vanilla, skip but keep entities in chunks that are not ticking
+			if (level.shouldTickBlocksAt(blockEntity.getBlockPos())) {
+				tickable.tick();
+			}
+
+			final int period = tickable.tickPeriod();
+
+			if (period <= 0) {
+				dueTicks.removeInt(blockEntity);
+			} else {
+				file(blockEntity, now + Math.min(MAX_PERIOD, period));
+			}
+		}
+
+		due.clear();
+		spare = due;
+	}
+}
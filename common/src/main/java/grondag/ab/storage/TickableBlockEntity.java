@@ -30,6 +30,15 @@ public interface TickableBlockEntity {
 		// NOOP;
 	}
 
+	/**
+	 * Ticks between calls to {@link #tick()} when run by the {@link TickWheel}.
+	 * Checked after every tick, so it may change with the entity's state.
+	 * Zero stops ticking until {@link TickWheel#wake(net.minecraft.world.level.block.entity.BlockEntity)}.
+	 */
+	default int tickPeriod() {
+		return 1;
+	}
+
 	static void tick(Level world, BlockPos pos, BlockState state, BlockEntity blockEntity) {
 		((TickableBlockEntity) blockEntity).tick();
 	}
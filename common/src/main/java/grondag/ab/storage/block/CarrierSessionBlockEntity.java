@@ -35,6 +35,11 @@ public abstract class CarrierSessionBlockEntity extends NeighboredBlockEntity<Ca
 
 	protected abstract CarrierSession getSession(BlockEntity be, BlockPos neighborPos, Direction neighborSide);
 
+	/** Called when a new session is opened with a neighbor, before it is first used. */
+	protected void onSessionOpened(CarrierSession session) {
+		// NOOP
+	}
+
 	@Override
 	protected CarrierSession refreshNeighbor(CarrierSession existing, BlockEntity be, BlockPos neighborPos, Direction neighborSide) {
 		if (existing != null) {
@@ -50,6 +55,7 @@ public abstract class CarrierSessionBlockEntity extends NeighboredBlockEntity<Ca
 
 			if (session != null) {
 				if (session.isValid()) {
+					onSessionOpened(session);
 					return session;
 				} else {
 					session.close();
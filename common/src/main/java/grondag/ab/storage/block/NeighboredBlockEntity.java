@@ -37,7 +37,8 @@ import grondag.ab.varia.WorldTaskManager;
 public abstract class NeighboredBlockEntity<T> extends BlockEntity {
 	private final Object[] neighbors = new Object[12];
 	private int neighborCount;
-	protected boolean isEnqued = false;
+	/** Kept in a field so that repeated requests are recognized as one queued update. */
+	private final Runnable updateTask = this::updateNeighbors;
 
 	public NeighboredBlockEntity(BlockEntityType<?> blockEntityType, BlockPos pos, BlockState state) {
 		super(blockEntityType, pos, state);
@@ -91,9 +92,8 @@ public abstract class NeighboredBlockEntity<T> extends BlockEntity {
 	}
 
 	protected void enqueUpdate() {
-		if (!isEnqued && !level.isClientSide) {
-			isEnqued = true;
-			WorldTaskManager.enqueueImmediate(this::updateNeighbors);
+		if (!level.isClientSide) {
+			WorldTaskManager.enqueueOnce(level, WorldTaskManager.Priority.NEIGHBOR, updateTask);
 		}
 	}
 
@@ -148,8 +148,6 @@ public abstract class NeighboredBlockEntity<T> extends BlockEntity {
 			return;
 		}
 
-		isEnqued = false;
-
 		if (isRemoved()) {
 			closeAll();
 			return;
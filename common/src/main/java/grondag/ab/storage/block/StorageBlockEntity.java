@@ -23,33 +23,58 @@ package grondag.ab.storage.block;
 import java.util.function.Supplier;
 
 import io.netty.util.internal.ThreadLocalRandom;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
 
 import net.minecraft.core.BlockPos;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.protocol.game.ClientboundBlockEntityDataPacket;
 import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.level.block.entity.BlockEntityType;
 import net.minecraft.world.level.block.state.BlockState;
 
 import grondag.ab.storage.StorageClientState;
+import grondag.ab.transport.ConsumerPriority;
+import grondag.ab.transport.FluidUnits;
+import grondag.ab.transport.UtbCarrierSession;
 import grondag.ab.varia.Base32Namer;
+import grondag.ab.varia.WorldTaskManager;
+import grondag.fluidity.api.article.Article;
+import grondag.fluidity.api.article.StoredArticleView;
+import grondag.fluidity.api.fraction.Fraction;
 import grondag.fluidity.api.multiblock.MultiBlockManager;
 import grondag.fluidity.api.multiblock.MultiBlockMember;
+import grondag.fluidity.api.storage.StorageListener;
 import grondag.fluidity.api.storage.Store;
 import grondag.fluidity.base.storage.AbstractAggregateStore;
 import grondag.fluidity.base.storage.AbstractStore;
 import grondag.fluidity.base.storage.ForwardingStore;
+import grondag.fluidity.base.storage.discrete.FlexibleDiscreteStore;
+import grondag.fluidity.wip.api.transport.CarrierSession;
 
 @SuppressWarnings("rawtypes")
-public abstract class StorageBlockEntity<T extends StorageClientState, U extends MultiBlockMember> extends CarrierSessionBlockEntity {
+public abstract class StorageBlockEntity<T extends StorageClientState, U extends MultiBlockMember> extends CarrierSessionBlockEntity implements ConsumerPriority {
 	public static final String TAG_STORAGE = "storage";
 	public static final String TAG_LABEL = "label";
+	public static final String TAG_PRIORITY = "priority";
 
 	protected final AbstractStore storage;
 	public final ForwardingStore wrapper = new ForwardingStore();
 	protected String label = "UNKNOWN";
 	protected T clientState;
 	protected final U member;
+	protected int consumerPriority = ConsumerPriority.NORMAL;
+
+	/** Count of non-empty handles by article in effective storage.  Published as supply routes to attached sessions. */
+	protected final Object2IntOpenHashMap<Article> routedArticles = new Object2IntOpenHashMap<>();
+	/** Quantity by article in effective storage, in census units, maintained from the same notifications. */
+	protected final Object2LongOpenHashMap<Article> routedQuantities = new Object2LongOpenHashMap<>();
+	protected Store routedStore = null;
+
+	/** Empty handles tolerated in flexible storage before it is rebuilt. Handles are otherwise never released. */
+	protected static final int COMPACT_SLACK = 32;
+	protected boolean isCompactQueued = false;
 
 	public StorageBlockEntity(BlockEntityType<? extends StorageBlockEntity> type, BlockPos pos, BlockState state, Supplier<AbstractStore> storageSupplier, String labelRoot) {
 		super(type, pos, state);
@@ -78,6 +103,7 @@ public abstract class StorageBlockEntity<T extends StorageClientState, U extends
 		if (!isRegistered && hasLevel() && !level.isClientSide) {
 			deviceManager().connect(member);
 			isRegistered = true;
+			listenForRoutes(wrapper.getWrapped());
 		} else {
 			assert false : "detected duplicate loading.";
 		}
@@ -97,6 +123,7 @@ public abstract class StorageBlockEntity<T extends StorageClientState, U extends
 			storage.disconnect();
 
 			deviceManager().disconnect(member);
+			listenForRoutes(null);
 
 			isRegistered = false;
 		} else {
@@ -104,6 +131,209 @@ public abstract class StorageBlockEntity<T extends StorageClientState, U extends
 		}
 	}
 
+	/** Called by multiblock members when this block joins or leaves an aggregate store. */
+	public void setEffectiveStorage(Store store) {
+		wrapper.setWrapped(store);
+
+		if (isRegistered) {
+			listenForRoutes(store);
+		}
+	}
+
+	protected void listenForRoutes(Store store) {
+		if (routedStore != null) {
+			routedStore.eventStream().stopListening(routeListener, false);
+			clearRoutes();
+		}
+
+		routedStore = store;
+
+		if (store != null) {
+			// existing content is sent as accept notifications
+			store.eventStream().startListening(routeListener, true);
+		}
+	}
+
+	private void clearRoutes() {
+		for (final Article article : routedArticles.keySet()) {
+			publishSupply(article, 0);
+		}
+
+		routedArticles.clear();
+		routedQuantities.clear();
+	}
+
+	private void addRoute(Article article, long units, boolean isNewHandle) {
+		if (isNewHandle) {
+			routedArticles.addTo(article, 1);
+		}
+
+		publishSupply(article, routedQuantities.addTo(article, units) + units);
+	}
+
+	private void removeRoute(Article article, long units, boolean isEmptyHandle) {
+		releaseCapacity();
+
+		if (isEmptyHandle) {
+			queueCompaction();
+		}
+
+		if (isEmptyHandle && routedArticles.addTo(article, -1) <= 1) {
+			routedArticles.removeInt(article);
+			routedQuantities.removeLong(article);
+			publishSupply(article, 0);
+		} else if (routedArticles.containsKey(article)) {
+			publishSupply(article, routedQuantities.addTo(article, -units) - units);
+		}
+	}
+
+	private void queueCompaction() {
+		if (!isCompactQueued && level != null && storage instanceof FlexibleDiscreteStore) {
+			isCompactQueued = true;
+			WorldTaskManager.enqueue(level, WorldTaskManager.Priority.BULK, this::compactStorage);
+		}
+	}
+
+	/**
+	 * Rebuilds flexible storage from its saved form when most handles are empty, so
+	 * handle iteration by movers and screens stays proportional to content.
+	 * Skipped while part of an aggregate, which tracks member handles.
+	 *
+	 * <p>Screens and movers listen through {@link #wrapper}.  The store is unwrapped
+	 * for the rebuild, so they see all content leave under the old handles and
+	 * return under the new ones instead of handles changing underneath them.
+	 */
+	private boolean compactStorage() {
+		isCompactQueued = false;
+
+		if (!isRegistered || isRemoved() || wrapper.getWrapped() != storage) {
+			return false;
+		}
+
+		final int limit = storage.handleCount();
+		int live = 0;
+
+		for (int i = 0; i < limit; ++i) {
+			final StoredArticleView view = storage.view(i);
+
+			if (view != null && !view.isEmpty()) {
+				++live;
+			}
+		}
+
+		if (limit - live > Math.max(COMPACT_SLACK, live)) {
+			listenForRoutes(null);
+			wrapper.setWrapped(Store.STORAGE_COMPONENT.absent());
+			storage.readTag(storage.writeTag());
+			wrapper.setWrapped(storage);
+			// replay content so route counts match the new handles
+			listenForRoutes(storage);
+			markForSave();
+		}
+
+		return false;
+	}
+
+	/** Lets suppliers that were refused by a full store offer to it again. */
+	private void releaseCapacity() {
+		final int limit = neighborCount();
+
+		for (int i = 0; i < limit; ++i) {
+			if (getNeighbor(i) instanceof UtbCarrierSession) {
+				((UtbCarrierSession) getNeighbor(i)).clearSaturation();
+			}
+		}
+	}
+
+	private void publishSupply(Article article, long quantity) {
+		final int limit = neighborCount();
+
+		for (int i = 0; i < limit; ++i) {
+			if (getNeighbor(i) instanceof UtbCarrierSession) {
+				((UtbCarrierSession) getNeighbor(i)).setSupply(article, quantity);
+			}
+		}
+	}
+
+	@Override
+	protected void onSessionOpened(CarrierSession session) {
+		if (session instanceof UtbCarrierSession) {
+			final UtbCarrierSession utbSession = (UtbCarrierSession) session;
+			utbSession.refreshPriority();
+			utbSession.setStorageOrigin(wrapper);
+			utbSession.setAcceptsAny(true);
+
+			for (final Article article : routedArticles.keySet()) {
+				utbSession.setSupply(article, routedQuantities.getLong(article));
+			}
+		}
+	}
+
+	protected final StorageListener routeListener = new StorageListener() {
+		@Override
+		public void disconnect(Store store, boolean didNotify, boolean isValid) {
+			if (store == routedStore) {
+				clearRoutes();
+				routedStore = null;
+			}
+		}
+
+		@Override
+		public void onAccept(Store store, int handle, Article item, long delta, long newCount) {
+			// handle was empty before this if count equals delta
+			addRoute(item, delta, newCount == delta);
+		}
+
+		@Override
+		public void onSupply(Store store, int handle, Article item, long delta, long newCount) {
+			removeRoute(item, delta, newCount == 0);
+		}
+
+		@Override
+		public void onCapacityChange(Store store, long capacityDelta) {
+			if (capacityDelta > 0) {
+				releaseCapacity();
+			}
+		}
+
+		@Override
+		public void onAccept(Store store, int handle, Article item, Fraction delta, Fraction newVolume) {
+			addRoute(item, FluidUnits.of(delta), newVolume.equals(delta));
+		}
+
+		@Override
+		public void onSupply(Store store, int handle, Article item, Fraction delta, Fraction newVolume) {
+			removeRoute(item, FluidUnits.of(delta), newVolume.isZero());
+		}
+
+		@Override
+		public void onCapacityChange(Store store, Fraction capacityDelta) {
+			if (!capacityDelta.isZero() && !capacityDelta.isNegative()) {
+				releaseCapacity();
+			}
+		}
+	};
+
+	@Override
+	public int consumerPriority() {
+		return consumerPriority;
+	}
+
+	/** Advances to the next consumer priority, re-files attached sessions and tells the player. */
+	public void cyclePriority(Player player) {
+		consumerPriority = ConsumerPriority.next(consumerPriority);
+		final int limit = neighborCount();
+
+		for (int i = 0; i < limit; ++i) {
+			if (getNeighbor(i) instanceof UtbCarrierSession) {
+				((UtbCarrierSession) getNeighbor(i)).refreshPriority();
+			}
+		}
+
+		setChanged();
+		ConsumerPriority.showPriority(player, consumerPriority);
+	}
+
 	/** Do not call on client - will not crash but wastes memory. */
 	public Store getInternalStorage() {
 		return storage;
@@ -128,6 +358,10 @@ public abstract class StorageBlockEntity<T extends StorageClientState, U extends
 		super.saveAdditional(compoundTag);
 		compoundTag.put(TAG_STORAGE, getInternalStorage().writeTag());
 		compoundTag.putString(TAG_LABEL, label);
+
+		if (consumerPriority != ConsumerPriority.NORMAL) {
+			compoundTag.putInt(TAG_PRIORITY, consumerPriority);
+		}
 	}
 
 	@Override
@@ -143,6 +377,9 @@ public abstract class StorageBlockEntity<T extends StorageClientState, U extends
 		if (tag.contains(TAG_STORAGE)) {
 			getInternalStorage().readTag(tag.getCompound(TAG_STORAGE));
 		}
+
+		// absent means normal priority, which is not saved
+		consumerPriority = tag.getInt(TAG_PRIORITY);
 	}
 
 	@Override
@@ -48,6 +48,7 @@ import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.fabricmc.fabric.api.block.BlockAttackInteractionAware;
 
+import grondag.ab.Ability;
 import grondag.ab.storage.PortableStore;
 import grondag.ab.storage.block.PersistentStorageBlock;
 import grondag.ab.storage.item.CrateBlockEntity;
@@ -86,6 +87,11 @@ public class TankBlock extends PersistentStorageBlock implements BlockAttackInte
 			final BlockEntity be = world.getBlockEntity(pos);
 
 			if (be instanceof final TankBlockEntity tankBe) {
+				if (Ability.modifyKey.isPressed(player)) {
+					tankBe.cyclePriority(player);
+					return InteractionResult.SUCCESS;
+				}
+
 				if (Store.STORAGE_COMPONENT.applyActionsWithHeld(tankBe.getEffectiveStorage(), (ServerPlayer) player)) {
 					return InteractionResult.SUCCESS;
 				} //else {
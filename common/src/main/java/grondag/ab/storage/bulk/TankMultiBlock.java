@@ -42,12 +42,12 @@ public class TankMultiBlock extends AbstractStorageMultiBlock<TankMultiBlock.Mem
 
 		@Override
 		protected void beforeOwnerRemoval() {
-			blockEntity.wrapper.setWrapped(blockEntity.getInternalStorage());
+			blockEntity.setEffectiveStorage(blockEntity.getInternalStorage());
 		}
 
 		@Override
 		protected void afterOwnerAddition() {
-			blockEntity.wrapper.setWrapped(owner.storage);
+			blockEntity.setEffectiveStorage(owner.storage);
 		}
 
 		protected int species() {
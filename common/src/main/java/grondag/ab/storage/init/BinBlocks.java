@@ -33,6 +33,7 @@ import grondag.ab.storage.item.CrateBlock;
 import grondag.ab.storage.item.CrateBlockEntity;
 import grondag.ab.storage.item.CreativeBinStorage;
 import grondag.ab.storage.item.PortableCrateItem;
+import grondag.ab.transport.ConsumerPriority;
 import grondag.fluidity.api.article.ArticleType;
 import grondag.fluidity.api.storage.ArticleFunction;
 import grondag.fluidity.api.storage.Store;
@@ -140,6 +141,7 @@ public abstract class BinBlocks {
 		Store.INTERNAL_STORAGE_COMPONENT.registerProvider(ctx -> ((CrateBlockEntity) ctx.blockEntity()).getInternalStorage(), binX1, binX2, binX4, creativeBinX1, creativeBinX2, creativeBinX4);
 		ArticleFunction.CONSUMER_COMPONENT.registerProvider(ctx -> ((CrateBlockEntity) ctx.blockEntity()).getEffectiveStorage().getConsumer(), binX1, binX2, binX4, creativeBinX1, creativeBinX2, creativeBinX4);
 		ArticleFunction.SUPPLIER_COMPONENT.registerProvider(ctx -> ((CrateBlockEntity) ctx.blockEntity()).getEffectiveStorage().getSupplier(), binX1, binX2, binX4, creativeBinX1, creativeBinX2, creativeBinX4);
+		ConsumerPriority.CONSUMER_PRIORITY_COMPONENT.registerProvider(ctx -> (CrateBlockEntity) ctx.blockEntity(), binX1, binX2, binX4, creativeBinX1, creativeBinX2, creativeBinX4);
 
 		final XmPaint basePaint = Textures.crateBaseFinder(2).find();
 
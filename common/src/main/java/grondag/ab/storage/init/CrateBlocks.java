@@ -37,6 +37,7 @@ import grondag.ab.storage.item.CreativeCrateBlock;
 import grondag.ab.storage.item.CreativeCrateBlockEntity;
 import grondag.ab.storage.item.PortableCrateItem;
 import grondag.ab.storage.item.SlottedCrateBlockEntity;
+import grondag.ab.transport.ConsumerPriority;
 import grondag.fluidity.api.article.Article;
 import grondag.fluidity.api.article.ArticleType;
 import grondag.fluidity.api.storage.ArticleFunction;
@@ -134,6 +135,7 @@ public abstract class CrateBlocks {
 		Store.INTERNAL_STORAGE_COMPONENT.registerProvider(ctx -> ((CrateBlockEntity) ctx.blockEntity()).getInternalStorage(), crateBlock, slottedCrateBlock, hyperCrateBlock);
 		ArticleFunction.CONSUMER_COMPONENT.registerProvider(ctx -> ((CrateBlockEntity) ctx.blockEntity()).getEffectiveStorage().getConsumer(), crateBlock, slottedCrateBlock, hyperCrateBlock);
 		ArticleFunction.SUPPLIER_COMPONENT.registerProvider(ctx -> ((CrateBlockEntity) ctx.blockEntity()).getEffectiveStorage().getSupplier(), crateBlock, slottedCrateBlock, hyperCrateBlock);
+		ConsumerPriority.CONSUMER_PRIORITY_COMPONENT.registerProvider(ctx -> (CrateBlockEntity) ctx.blockEntity(), crateBlock, slottedCrateBlock, hyperCrateBlock);
 
 		final XmPaint basePaint = Textures.crateBaseFinder(2).find();
 
@@ -30,10 +30,12 @@ import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.material.Material;
 
 import grondag.ab.Ability;
+import grondag.ab.transport.ConsumerPriority;
 import grondag.ab.transport.PipeBlock;
 import grondag.ab.transport.PipeBlockEntity;
 import grondag.ab.transport.PipeBlockItem;
 import grondag.ab.transport.StraightPipeBlock;
+import grondag.ab.transport.UniversalTransportBus;
 import grondag.ab.transport.item.BusToStorageBlockEntity;
 import grondag.ab.transport.item.ItemMoverBlock;
 import grondag.ab.transport.item.ItemMoverBlockEntity;
@@ -79,19 +81,46 @@ public abstract class PipeBlocks {
 		final var pipeBlockGlowUTB1 = Ability.block("utb1_flex_g", new PipeBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::pipeSupplier, true), PipeBlockItem::new);
 		final var pipeBlockStraightUTB1 = Ability.block("utb1_straight", new StraightPipeBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::pipeSupplier, false), PipeBlockItem::new);
 		final var pipeBlockStraightGlowUTB1 = Ability.block("utb1_straight_g", new StraightPipeBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::pipeSupplier, true), PipeBlockItem::new);
-		pipeBET_UTB1 = Ability.blockEntityType("utb1", PipeBlocks::pipeSupplier, pipeBlockUTB1, pipeBlockStraightUTB1, pipeBlockGlowUTB1, pipeBlockStraightGlowUTB1);
+		final var pipeBlockUTB2 = Ability.block("utb2_flex", new PipeBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::pipeSupplier, false, UniversalTransportBus.UTB2), PipeBlockItem::new);
+		final var pipeBlockStraightUTB2 = Ability.block("utb2_straight", new StraightPipeBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::pipeSupplier, false, UniversalTransportBus.UTB2), PipeBlockItem::new);
+		final var pipeBlockUTB3 = Ability.block("utb3_flex", new PipeBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::pipeSupplier, false, UniversalTransportBus.UTB3), PipeBlockItem::new);
+		final var pipeBlockStraightUTB3 = Ability.block("utb3_straight", new StraightPipeBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::pipeSupplier, false, UniversalTransportBus.UTB3), PipeBlockItem::new);
+		// block entities take their bus tier from the block, so all tiers share these types
+		pipeBET_UTB1 = Ability.blockEntityType("utb1", PipeBlocks::pipeSupplier, pipeBlockUTB1, pipeBlockStraightUTB1, pipeBlockGlowUTB1, pipeBlockStraightGlowUTB1, pipeBlockUTB2, pipeBlockStraightUTB2, pipeBlockUTB3, pipeBlockStraightUTB3);
 
 		final var storage2BusBlockUTB1 = Ability.block("utb1_intake", new ItemMoverBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::intakeSupplier, false), PipeBlockItem::new);
 		final var storage2BusBlockGlowUTB1 = Ability.block("utb1_intake_g", new ItemMoverBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::intakeSupplier, true), PipeBlockItem::new);
-		pipeBET_UTB1_S2B = Ability.blockEntityType("utb1_intake", PipeBlocks::intakeSupplier, storage2BusBlockUTB1, storage2BusBlockGlowUTB1);
+		final var storage2BusBlockUTB2 = Ability.block("utb2_intake", new ItemMoverBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::intakeSupplier, false, UniversalTransportBus.UTB2), PipeBlockItem::new);
+		final var storage2BusBlockUTB3 = Ability.block("utb3_intake", new ItemMoverBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::intakeSupplier, false, UniversalTransportBus.UTB3), PipeBlockItem::new);
+		// multi-target movers serve every adjacent non-pipe block from one block entity
+		final var storage2BusMultiUTB1 = Ability.block("utb1_intake_multi", new ItemMoverBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::intakeSupplier, false, UniversalTransportBus.BASIC, true), PipeBlockItem::new);
+		final var storage2BusMultiUTB2 = Ability.block("utb2_intake_multi", new ItemMoverBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::intakeSupplier, false, UniversalTransportBus.UTB2, true), PipeBlockItem::new);
+		final var storage2BusMultiUTB3 = Ability.block("utb3_intake_multi", new ItemMoverBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::intakeSupplier, false, UniversalTransportBus.UTB3, true), PipeBlockItem::new);
+		pipeBET_UTB1_S2B = Ability.blockEntityType("utb1_intake", PipeBlocks::intakeSupplier, storage2BusBlockUTB1, storage2BusBlockGlowUTB1, storage2BusBlockUTB2, storage2BusBlockUTB3,
+				storage2BusMultiUTB1, storage2BusMultiUTB2, storage2BusMultiUTB3);
 
 		final var bus2StorageBlockUTB1 = Ability.block("utb1_export", new ItemMoverBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::exportSupplier, false), PipeBlockItem::new);
 		final var bus2StorageBlockGlowUTB1 = Ability.block("utb1_export_g", new ItemMoverBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::exportSupplier, true), PipeBlockItem::new);
-		pipeBET_UTB1_B2S = Ability.blockEntityType("utb1_export", PipeBlocks::exportSupplier, bus2StorageBlockUTB1, bus2StorageBlockGlowUTB1);
-
-		CarrierProvider.CARRIER_PROVIDER_COMPONENT.registerProvider(ctx -> ((PipeBlockEntity) ctx.blockEntity()).getCarrierProvider(ctx), pipeBlockUTB1, pipeBlockStraightUTB1, storage2BusBlockUTB1, bus2StorageBlockUTB1, pipeBlockGlowUTB1, pipeBlockStraightGlowUTB1, storage2BusBlockGlowUTB1, bus2StorageBlockGlowUTB1);
-		ArticleFunction.CONSUMER_COMPONENT.registerProvider(ctx -> ((ItemMoverBlockEntity) ctx.blockEntity()).getConsumer(), storage2BusBlockUTB1, bus2StorageBlockUTB1, storage2BusBlockGlowUTB1, bus2StorageBlockGlowUTB1);
-		ArticleFunction.SUPPLIER_COMPONENT.registerProvider(ctx -> ((ItemMoverBlockEntity) ctx.blockEntity()).getSupplier(), storage2BusBlockUTB1, bus2StorageBlockUTB1, storage2BusBlockGlowUTB1, bus2StorageBlockGlowUTB1);
+		final var bus2StorageBlockUTB2 = Ability.block("utb2_export", new ItemMoverBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::exportSupplier, false, UniversalTransportBus.UTB2), PipeBlockItem::new);
+		final var bus2StorageBlockUTB3 = Ability.block("utb3_export", new ItemMoverBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::exportSupplier, false, UniversalTransportBus.UTB3), PipeBlockItem::new);
+		final var bus2StorageMultiUTB1 = Ability.block("utb1_export_multi", new ItemMoverBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::exportSupplier, false, UniversalTransportBus.BASIC, true), PipeBlockItem::new);
+		final var bus2StorageMultiUTB2 = Ability.block("utb2_export_multi", new ItemMoverBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::exportSupplier, false, UniversalTransportBus.UTB2, true), PipeBlockItem::new);
+		final var bus2StorageMultiUTB3 = Ability.block("utb3_export_multi", new ItemMoverBlock(Block.Properties.of(Material.METAL).dynamicShape().strength(1, 1), PipeBlocks::exportSupplier, false, UniversalTransportBus.UTB3, true), PipeBlockItem::new);
+		pipeBET_UTB1_B2S = Ability.blockEntityType("utb1_export", PipeBlocks::exportSupplier, bus2StorageBlockUTB1, bus2StorageBlockGlowUTB1, bus2StorageBlockUTB2, bus2StorageBlockUTB3,
+				bus2StorageMultiUTB1, bus2StorageMultiUTB2, bus2StorageMultiUTB3);
+
+		CarrierProvider.CARRIER_PROVIDER_COMPONENT.registerProvider(ctx -> ((PipeBlockEntity) ctx.blockEntity()).getCarrierProvider(ctx), pipeBlockUTB1, pipeBlockStraightUTB1, storage2BusBlockUTB1, bus2StorageBlockUTB1, pipeBlockGlowUTB1, pipeBlockStraightGlowUTB1, storage2BusBlockGlowUTB1, bus2StorageBlockGlowUTB1,
+				pipeBlockUTB2, pipeBlockStraightUTB2, storage2BusBlockUTB2, bus2StorageBlockUTB2, pipeBlockUTB3, pipeBlockStraightUTB3, storage2BusBlockUTB3, bus2StorageBlockUTB3,
+				storage2BusMultiUTB1, bus2StorageMultiUTB1, storage2BusMultiUTB2, bus2StorageMultiUTB2, storage2BusMultiUTB3, bus2StorageMultiUTB3);
+		ArticleFunction.CONSUMER_COMPONENT.registerProvider(ctx -> ((ItemMoverBlockEntity) ctx.blockEntity()).getConsumer(), storage2BusBlockUTB1, bus2StorageBlockUTB1, storage2BusBlockGlowUTB1, bus2StorageBlockGlowUTB1,
+				storage2BusBlockUTB2, bus2StorageBlockUTB2, storage2BusBlockUTB3, bus2StorageBlockUTB3,
+				storage2BusMultiUTB1, bus2StorageMultiUTB1, storage2BusMultiUTB2, bus2StorageMultiUTB2, storage2BusMultiUTB3, bus2StorageMultiUTB3);
+		ArticleFunction.SUPPLIER_COMPONENT.registerProvider(ctx -> ((ItemMoverBlockEntity) ctx.blockEntity()).getSupplier(), storage2BusBlockUTB1, bus2StorageBlockUTB1, storage2BusBlockGlowUTB1, bus2StorageBlockGlowUTB1,
+				storage2BusBlockUTB2, bus2StorageBlockUTB2, storage2BusBlockUTB3, bus2StorageBlockUTB3,
+				storage2BusMultiUTB1, bus2StorageMultiUTB1, storage2BusMultiUTB2, bus2StorageMultiUTB2, storage2BusMultiUTB3, bus2StorageMultiUTB3);
+		ConsumerPriority.CONSUMER_PRIORITY_COMPONENT.registerProvider(ctx -> (ItemMoverBlockEntity) ctx.blockEntity(), storage2BusBlockUTB1, bus2StorageBlockUTB1, storage2BusBlockGlowUTB1, bus2StorageBlockGlowUTB1,
+				storage2BusBlockUTB2, bus2StorageBlockUTB2, storage2BusBlockUTB3, bus2StorageBlockUTB3,
+				storage2BusMultiUTB1, bus2StorageMultiUTB1, storage2BusMultiUTB2, bus2StorageMultiUTB2, storage2BusMultiUTB3, bus2StorageMultiUTB3);
 
 		final Function<BlockState, PrimitiveStateFunction> utb1FlexFunc = bs -> PrimitiveStateFunction.builder()
 				.withJoin(PipeBlock.JOIN_TEST)
@@ -109,6 +138,8 @@ public abstract class PipeBlocks {
 
 		XmBlockRegistry.addBlockStates(pipeBlockUTB1, utb1FlexFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
 		XmBlockRegistry.addBlockStates(pipeBlockGlowUTB1, utb1FlexFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
+		XmBlockRegistry.addBlockStates(pipeBlockUTB2, utb1FlexFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
+		XmBlockRegistry.addBlockStates(pipeBlockUTB3, utb1FlexFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
 
 		final Function<BlockState, PrimitiveStateFunction> utb1StraightFunc = bs -> PrimitiveStateFunction.builder()
 				.withJoin(PipeBlock.JOIN_TEST_WITH_AXIS)
@@ -126,6 +157,8 @@ public abstract class PipeBlocks {
 
 		XmBlockRegistry.addBlockStates(pipeBlockStraightUTB1, utb1StraightFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
 		XmBlockRegistry.addBlockStates(pipeBlockStraightGlowUTB1, utb1StraightFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
+		XmBlockRegistry.addBlockStates(pipeBlockStraightUTB2, utb1StraightFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
+		XmBlockRegistry.addBlockStates(pipeBlockStraightUTB3, utb1StraightFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
 
 		final Function<BlockState, PrimitiveStateFunction> utb1S2bFunc = bs -> PrimitiveStateFunction.builder()
 				.withJoin(ItemMoverBlock.ITEM_MOVER_JOIN_TEST)
@@ -148,6 +181,11 @@ public abstract class PipeBlocks {
 
 		XmBlockRegistry.addBlockStates(storage2BusBlockUTB1, utb1S2bFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
 		XmBlockRegistry.addBlockStates(storage2BusBlockGlowUTB1, utb1S2bFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
+		XmBlockRegistry.addBlockStates(storage2BusBlockUTB2, utb1S2bFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
+		XmBlockRegistry.addBlockStates(storage2BusBlockUTB3, utb1S2bFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
+		XmBlockRegistry.addBlockStates(storage2BusMultiUTB1, utb1S2bFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
+		XmBlockRegistry.addBlockStates(storage2BusMultiUTB2, utb1S2bFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
+		XmBlockRegistry.addBlockStates(storage2BusMultiUTB3, utb1S2bFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
 
 		final Function<BlockState, PrimitiveStateFunction> utb1B2sFunc = bs -> PrimitiveStateFunction.builder()
 				.withJoin(ItemMoverBlock.ITEM_MOVER_JOIN_TEST)
@@ -170,5 +208,10 @@ public abstract class PipeBlocks {
 
 		XmBlockRegistry.addBlockStates(bus2StorageBlockUTB1, utb1B2sFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
 		XmBlockRegistry.addBlockStates(bus2StorageBlockGlowUTB1, utb1B2sFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
+		XmBlockRegistry.addBlockStates(bus2StorageBlockUTB2, utb1B2sFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
+		XmBlockRegistry.addBlockStates(bus2StorageBlockUTB3, utb1B2sFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
+		XmBlockRegistry.addBlockStates(bus2StorageMultiUTB1, utb1B2sFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
+		XmBlockRegistry.addBlockStates(bus2StorageMultiUTB2, utb1B2sFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
+		XmBlockRegistry.addBlockStates(bus2StorageMultiUTB3, utb1B2sFunc, PipeBlockItem.PIPE_ITEM_MODEL_FUNCTION);
 	}
 }
@@ -31,6 +31,7 @@ import grondag.ab.storage.PortableStore;
 import grondag.ab.storage.bulk.PortableTankItem;
 import grondag.ab.storage.bulk.TankBlock;
 import grondag.ab.storage.bulk.TankBlockEntity;
+import grondag.ab.transport.ConsumerPriority;
 import grondag.fluidity.api.article.ArticleType;
 import grondag.fluidity.api.fraction.Fraction;
 import grondag.fluidity.api.storage.ArticleFunction;
@@ -76,6 +77,7 @@ public abstract class TankBlocks {
 		Store.INTERNAL_STORAGE_COMPONENT.registerProvider(ctx -> ((TankBlockEntity) ctx.blockEntity()).getInternalStorage(), tankBlock);
 		ArticleFunction.CONSUMER_COMPONENT.registerProvider(ctx -> ((TankBlockEntity) ctx.blockEntity()).getEffectiveStorage().getConsumer(), tankBlock);
 		ArticleFunction.SUPPLIER_COMPONENT.registerProvider(ctx -> ((TankBlockEntity) ctx.blockEntity()).getEffectiveStorage().getSupplier(), tankBlock);
+		ConsumerPriority.CONSUMER_PRIORITY_COMPONENT.registerProvider(ctx -> (TankBlockEntity) ctx.blockEntity(), tankBlock);
 
 		Store.STORAGE_COMPONENT.registerProvider(ctx -> new PortableStore(new SimpleTank(Fraction.of(32)), ctx), portableTankItem);
 
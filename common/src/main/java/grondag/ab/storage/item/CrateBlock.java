@@ -47,6 +47,7 @@ import net.minecraft.world.phys.BlockHitResult;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 
+import grondag.ab.Ability;
 import grondag.ab.storage.PortableStore;
 import grondag.ab.storage.block.PersistentStorageBlock;
 import grondag.ab.storage.ux.CrateContainerMenu;
@@ -87,7 +88,9 @@ public class CrateBlock extends PersistentStorageBlock {
 		if (!world.isClientSide) {
 			final BlockEntity be = world.getBlockEntity(pos);
 
-			if (be instanceof CrateBlockEntity) {
+			if (be instanceof final CrateBlockEntity crateBe && Ability.modifyKey.isPressed(player)) {
+				crateBe.cyclePriority(player);
+			} else if (be instanceof CrateBlockEntity) {
 				final String label = ((CrateBlockEntity) be).getLabel();
 				MenuRegistry.openExtendedMenu((ServerPlayer) player, new CrateContainerMenu.MenuProvider(label, pos));
 			}
@@ -43,12 +43,12 @@ public class CrateMultiBlock extends AbstractStorageMultiBlock<CrateMultiBlock.M
 
 		@Override
 		protected void beforeOwnerRemoval() {
-			blockEntity.wrapper.setWrapped(blockEntity.getInternalStorage());
+			blockEntity.setEffectiveStorage(blockEntity.getInternalStorage());
 		}
 
 		@Override
 		protected void afterOwnerAddition() {
-			blockEntity.wrapper.setWrapped(owner.storage);
+			blockEntity.setEffectiveStorage(owner.storage);
 		}
 
 		protected int species() {
@@ -31,6 +31,7 @@ import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.StateDefinition.Builder;
 import net.minecraft.world.level.block.state.properties.BlockStateProperties;
 
+import grondag.ab.storage.TickWheel;
 import grondag.ab.storage.TickableBlockEntity;
 import grondag.ab.storage.block.CreativeStorageBlock;
 
@@ -56,6 +57,6 @@ public class CreativeCrateBlock extends CreativeStorageBlock {
 
 	@Override
 	public <T extends BlockEntity> BlockEntityTicker<T> getTicker(Level world, BlockState state, BlockEntityType<T> type) {
-		return world.isClientSide ? null : TickableBlockEntity::tick;
+		return world.isClientSide || TickWheel.isEnabled() ? null : TickableBlockEntity::tick;
 	}
 }
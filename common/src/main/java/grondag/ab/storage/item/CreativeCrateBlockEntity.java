@@ -32,6 +32,7 @@ import net.minecraft.world.level.block.entity.BlockEntityType;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.properties.BlockStateProperties;
 
+import grondag.ab.storage.TickWheel;
 import grondag.ab.storage.TickableBlockEntity;
 import grondag.ab.storage.block.CarrierSessionBlockEntity;
 import grondag.fluidity.api.article.ArticleType;
@@ -83,7 +84,9 @@ public class CreativeCrateBlockEntity extends CarrierSessionBlockEntity implemen
 
 	@Override
 	public void onLoaded() {
-		// NOOP
+		if (TickWheel.isEnabled()) {
+			TickWheel.schedule(this);
+		}
 	}
 
 	@Override
@@ -0,0 +1,54 @@
+/*
+ * This file is part of Ability and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.ab.transport;
+
+import net.minecraft.network.chat.Component;
+import net.minecraft.world.entity.player.Player;
+
+import grondag.ab.Ability;
+import grondag.fluidity.api.device.DeviceComponentRegistry;
+import grondag.fluidity.api.device.DeviceComponentType;
+
+/**
+ * Device component giving the order in which network consumers are filled.
+ * Higher values fill first.  Devices without the component are {@link #NORMAL}.
+ */
+@FunctionalInterface
+public interface ConsumerPriority {
+	int consumerPriority();
+
+	int MIN = -2;
+	int NORMAL = 0;
+	int MAX = 2;
+
+	ConsumerPriority DEFAULT = () -> NORMAL;
+
+	DeviceComponentType<ConsumerPriority> CONSUMER_PRIORITY_COMPONENT = DeviceComponentRegistry.INSTANCE.createComponent(Ability.id("consumer_priority"), DEFAULT);
+
+	/** Next value in the cycle used by in-world adjustment, wrapping from {@link #MAX} to {@link #MIN}. */
+	static int next(int priority) {
+		return priority >= MAX ? MIN : priority + 1;
+	}
+
+	static void showPriority(Player player, int priority) {
+		player.displayClientMessage(Component.translatable("transport.ab.priority", priority), true);
+	}
+}
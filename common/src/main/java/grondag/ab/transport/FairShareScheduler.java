@@ -0,0 +1,149 @@
+/*
+ * This file is part of Ability and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.ab.transport;
+
+import it.unimi.dsi.fastutil.booleans.BooleanArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.jetbrains.annotations.Nullable;
+
+import grondag.fluidity.api.article.ArticleType;
+
+/**
+ * Deficit round robin.  Each session that requests bandwidth earns a quantum every tick
+ * in proportion to its weight, relative to the total weight of sessions active in the prior
+ * tick, and may spend what it has earned.  Savings are capped at one tick of network budget,
+ * so sessions that sleep or unload neither starve others nor return with a burst.
+ *
+ * <p>Deficits are kept in fixed point so quanta smaller than one unit still accrue.
+ * When sessions outnumber the budget, each earns a whole unit over several ticks and
+ * sessions that were served early in one tick cannot take it again until the rest have.
+ *
+ * <p>Charges made this tick are journaled.  The rollback state is the journal length,
+ * so a rolled-back transaction returns exactly what it charged to each session.
+ */
+class FairShareScheduler implements UtbScheduler {
+	/** Fractional bits of deficit values. */
+	static final int FRACTION_BITS = 16;
+	static final long ONE = 1L << FRACTION_BITS;
+
+	private final UniversalTransportBus bus;
+	private int tick = 0;
+	private int lastTickWeight = 1;
+	private int thisTickWeight = 0;
+	private final ObjectArrayList<BandwidthShare> chargedShares = new ObjectArrayList<>();
+	private final BooleanArrayList chargedFluid = new BooleanArrayList();
+	private final LongArrayList chargedAmounts = new LongArrayList();
+
+	/** Journal length that still fits in the 16 bits of rollback state. */
+	private static final int MAX_JOURNAL = 0xFFFF;
+
+	FairShareScheduler(UniversalTransportBus bus) {
+		this.bus = bus;
+	}
+
+	@Override
+	public void startTick(int thisTick) {
+		tick = thisTick;
+		lastTickWeight = Math.max(1, thisTickWeight);
+		thisTickWeight = 0;
+		// transactions do not span ticks
+		chargedShares.clear();
+		chargedFluid.clear();
+		chargedAmounts.clear();
+	}
+
+	private void credit(BandwidthShare share) {
+		if (share.creditTick != tick) {
+			share.creditTick = tick;
+			thisTickWeight += share.weight;
+
+			// weight seen so far this tick also counts, so a network's first tick is not granted in full to each session
+			final long budget = (long) bus.itemsPerTick() << FRACTION_BITS;
+			final long quantum = Math.max(1, budget * share.weight / Math.max(lastTickWeight, thisTickWeight));
+			share.itemDeficit = Math.min(share.itemDeficit + quantum, budget);
+			share.fluidDeficit = Math.min(share.fluidDeficit + quantum, budget);
+		}
+	}
+
+	@Override
+	public boolean shouldTransmit(@Nullable BandwidthShare share) {
+		if (share == null) {
+			return true;
+		}
+
+		credit(share);
+		return share.itemDeficit >= ONE || share.fluidDeficit >= ONE;
+	}
+
+	@Override
+	public long limit(@Nullable BandwidthShare share, ArticleType<?> type, long requested) {
+		if (share == null) {
+			return requested;
+		}
+
+		credit(share);
+		return Math.max(0, Math.min(requested, (type == ArticleType.FLUID ? share.fluidDeficit : share.itemDeficit) >> FRACTION_BITS));
+	}
+
+	@Override
+	public void charge(@Nullable BandwidthShare share, ArticleType<?> type, long amount) {
+		if (share != null) {
+			if (type == ArticleType.FLUID) {
+				share.fluidDeficit -= amount << FRACTION_BITS;
+			} else {
+				share.itemDeficit -= amount << FRACTION_BITS;
+			}
+
+			// past the limit charges stick, which only errs against the session
+			if (chargedShares.size() < MAX_JOURNAL) {
+				chargedShares.add(share);
+				chargedFluid.add(type == ArticleType.FLUID);
+				chargedAmounts.add(amount);
+			}
+		}
+	}
+
+	@Override
+	public int rollbackState() {
+		return chargedShares.size();
+	}
+
+	@Override
+	public void restoreState(int state) {
+		for (int i = chargedShares.size() - 1; i >= state; --i) {
+			final BandwidthShare share = chargedShares.get(i);
+			final long amount = chargedAmounts.getLong(i) << FRACTION_BITS;
+
+			if (chargedFluid.getBoolean(i)) {
+				share.fluidDeficit += amount;
+			} else {
+				share.itemDeficit += amount;
+			}
+		}
+
+		if (state < chargedShares.size()) {
+			chargedShares.size(state);
+			chargedFluid.size(state);
+			chargedAmounts.size(state);
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of Ability and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.ab.transport;
+
+import grondag.fluidity.api.fraction.Fraction;
+
+/**
+ * Fixed-point fluid volume used inside the transport layer.  Volumes are longs in
+ * {@link #PER_BUCKET} units, which divides evenly by the divisors in common use
+ * (1, 3, 1000, 81000), so conversion at the edges is exact for them.  Other divisors
+ * round toward zero.  {@link Fraction} is only used where an API requires it.
+ */
+public abstract class FluidUnits {
+	private FluidUnits() { }
+
+	public static final long PER_BUCKET = 81000;
+
+	/** Converts a volume expressed as numerator / divisor to fixed-point units, rounding down. */
+	public static long of(long numerator, long divisor) {
+		if (divisor == PER_BUCKET) {
+			return numerator;
+		} else if (PER_BUCKET % divisor == 0) {
+			return numerator * (PER_BUCKET / divisor);
+		} else {
+			// split to avoid overflow on large volumes
+			return numerator / divisor * PER_BUCKET + numerator % divisor * PER_BUCKET / divisor;
+		}
+	}
+
+	public static long of(Fraction volume) {
+		return volume.toLong(PER_BUCKET);
+	}
+
+	/** Converts fixed-point units to a numerator over the given divisor, rounding down. */
+	public static long toNumerator(long units, long divisor) {
+		if (divisor == PER_BUCKET) {
+			return units;
+		} else if (PER_BUCKET % divisor == 0) {
+			return units / (PER_BUCKET / divisor);
+		} else {
+			return units / PER_BUCKET * divisor + units % PER_BUCKET * divisor / PER_BUCKET;
+		}
+	}
+
+	public static Fraction toFraction(long units) {
+		return Fraction.of(units / PER_BUCKET, units % PER_BUCKET, PER_BUCKET);
+	}
+}
@@ -56,10 +56,16 @@ import grondag.xm.api.connect.world.BlockTestContext;
 
 public class PipeBlock extends SpeciesStorageBlock {
 	public final boolean hasGlow;
+	public final UniversalTransportBus bus;
 
 	public PipeBlock(Block.Properties settings, BlockEntitySupplier<? extends BlockEntity> beFactory, boolean hasGlow) {
+		this(settings, beFactory, hasGlow, UniversalTransportBus.BASIC);
+	}
+
+	public PipeBlock(Block.Properties settings, BlockEntitySupplier<? extends BlockEntity> beFactory, boolean hasGlow, UniversalTransportBus bus) {
 		super(settings, beFactory, SpeciesProperty.speciesForBlockType(PipeBlock.class));
 		this.hasGlow = hasGlow;
+		this.bus = bus;
 	}
 
 	@SuppressWarnings("rawtypes")
@@ -91,7 +97,8 @@ public class PipeBlock extends SpeciesStorageBlock {
 	}
 
 	public static boolean canConnectSelf(BlockState fromState, BlockPos fromPos, BlockState toState, BlockPos toPos) {
-		if (fromState.getValue(SpeciesProperty.SPECIES) != toState.getValue(SpeciesProperty.SPECIES)) {
+		if (fromState.getValue(SpeciesProperty.SPECIES) != toState.getValue(SpeciesProperty.SPECIES)
+				|| ((PipeBlock) fromState.getBlock()).bus != ((PipeBlock) toState.getBlock()).bus) {
 			return false;
 		}
 
@@ -126,8 +133,8 @@ public class PipeBlock extends SpeciesStorageBlock {
 	@Environment(EnvType.CLIENT)
 	public void appendHoverText(ItemStack itemStack, @Nullable BlockGetter blockView, List<Component> list, TooltipFlag tooltipContext) {
 		super.appendHoverText(itemStack, blockView, list, tooltipContext);
-		list.add(Component.translatable("transport.ab.utb1").withStyle(ChatFormatting.GOLD));
-		list.add(Component.translatable("transport.ab.utb1.desc").withStyle(ChatFormatting.GOLD));
+		list.add(Component.translatable(bus.translationKey()).withStyle(ChatFormatting.GOLD));
+		list.add(Component.translatable(bus.translationKey() + ".desc").withStyle(ChatFormatting.GOLD));
 
 		final int species = PipeBlockItem.species(itemStack);
 
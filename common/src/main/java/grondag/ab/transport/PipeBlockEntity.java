@@ -33,15 +33,17 @@ import grondag.fluidity.wip.base.transport.SingleCarrierProvider;
 import grondag.fluidity.wip.base.transport.SubCarrier;
 
 public class PipeBlockEntity extends BlockEntity {
-	protected final SubCarrier<UtbCostFunction> carrier = new UtbSubCarrier(UniversalTransportBus.BASIC);
+	protected final UniversalTransportBus bus;
+	protected final SubCarrier<UtbCostFunction> carrier;
 	public final CarrierProvider carrierProvider;
 	protected final PipeMultiBlock.Member member;
 	protected PipeMultiBlock owner = null;
-	protected boolean isEnqued = false;
 	protected boolean isRegistered = false;
 
 	public PipeBlockEntity(BlockEntityType<? extends PipeBlockEntity> type, BlockPos pos, BlockState state) {
 		super(type, pos, state);
+		bus = ((PipeBlock) state.getBlock()).bus;
+		carrier = new UtbSubCarrier(bus);
 		member = new PipeMultiBlock.Member(this, b -> b.carrier);
 		carrierProvider = createCarrierProvider();
 	}
@@ -50,10 +52,12 @@ public class PipeBlockEntity extends BlockEntity {
 		return SingleCarrierProvider.of(carrier);
 	}
 
+	/** Kept in a field so that repeated requests are recognized as one queued update. */
+	private final Runnable updateTask = this::enquedUpdate;
+
 	protected final void enqueUpdate() {
-		if (!isEnqued && !level.isClientSide) {
-			isEnqued = true;
-			WorldTaskManager.enqueueImmediate(this::enquedUpdate);
+		if (!level.isClientSide) {
+			WorldTaskManager.enqueueOnce(level, WorldTaskManager.Priority.TOPOLOGY, updateTask);
 		}
 	}
 
@@ -67,7 +71,6 @@ public class PipeBlockEntity extends BlockEntity {
 		}
 
 		onEnquedUpdate();
-		isEnqued = false;
 	}
 
 	@Override
@@ -99,7 +102,7 @@ public class PipeBlockEntity extends BlockEntity {
 
 	private void onLoaded() {
 		if (!isRegistered && hasLevel() && !level.isClientSide) {
-			PipeMultiBlock.DEVICE_MANAGER.connect(member);
+			PipeMultiBlock.deviceManager(bus).connect(member);
 			isRegistered = true;
 			enqueUpdate();
 		} else {
@@ -109,7 +112,7 @@ public class PipeBlockEntity extends BlockEntity {
 
 	private void onUnloaded() {
 		if (isRegistered && hasLevel() && !level.isClientSide) {
-			PipeMultiBlock.DEVICE_MANAGER.disconnect(member);
+			PipeMultiBlock.deviceManager(bus).disconnect(member);
 			isRegistered = false;
 		} else {
 			assert false : "detected incorrected unloading.";
@@ -22,8 +22,15 @@ package grondag.ab.transport;
 
 import java.util.function.Function;
 
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.entity.BlockEntity;
 
+import grondag.ab.AbilityConfig;
+import grondag.ab.transport.item.ItemMoverBlockEntity;
+import grondag.ab.varia.WorldTaskManager;
 import grondag.fluidity.api.multiblock.MultiBlockManager;
 import grondag.fluidity.base.multiblock.AbstractBlockEntityMember;
 import grondag.fluidity.wip.api.transport.CarrierType;
@@ -31,8 +38,113 @@ import grondag.fluidity.wip.base.transport.AbstractCarrierMultiBlock;
 import grondag.fluidity.wip.base.transport.SubCarrier;
 
 public class PipeMultiBlock extends AbstractCarrierMultiBlock<PipeMultiBlock.Member, PipeMultiBlock> {
-	public PipeMultiBlock() {
-		super(UniversalTransportBus.BASIC);
+	/** Networks with at least one mover, when batched ticking is enabled. */
+	private static final ObjectArrayList<PipeMultiBlock> BATCHED = new ObjectArrayList<>();
+	/** Config value latched at server start, so changes cannot leave loaded movers ticked twice. */
+	private static boolean isBatching = false;
+
+	/** Member movers in block position order, so the batched pass runs in a stable sequence. */
+	protected final ObjectArrayList<ItemMoverBlockEntity> movers = new ObjectArrayList<>();
+	protected int lastBatchTick = 0;
+
+	public PipeMultiBlock(UniversalTransportBus bus) {
+		super(bus);
+	}
+
+	/** Does nothing unless batching is on, so unbatched servers hold no mover lists. */
+	protected void addMover(ItemMoverBlockEntity mover) {
+		if (!isBatching) {
+			return;
+		}
+
+		final long key = mover.getBlockPos().asLong();
+		int i = movers.size();
+
+		while (i > 0 && movers.get(i - 1).getBlockPos().asLong() > key) {
+			--i;
+		}
+
+		movers.add(i, mover);
+
+		if (movers.size() == 1) {
+			BATCHED.add(this);
+		}
+	}
+
+	protected void removeMover(ItemMoverBlockEntity mover) {
+		if (movers.remove(mover) && movers.isEmpty()) {
+			BATCHED.remove(this);
+		}
+	}
+
+	/**
+	 * Runs all member movers in one pass.  The carrier cost function is refreshed
+	 * once up front so that per-mover throttle checks find it already current.
+	 * Movers are in position order, so the chunk ticking check is shared by runs
+	 * of movers in the same chunk.
+	 */
+	protected void tickMovers() {
+		final int thisTick = WorldTaskManager.tickCounter();
+
+		if (thisTick == lastBatchTick) {
+			return;
+		}
+
+		lastBatchTick = thisTick;
+		((UtbAggregateCarrier) carrier).costFunction().refresh();
+
+		final Object[] elements = movers.elements();
+		final int limit = movers.size();
+		Level lastLevel = null;
+		long lastChunk = 0;
+		boolean isTicking = false;
+
+		for (int i = 0; i < limit; ++i) {
+			final ItemMoverBlockEntity mover = (ItemMoverBlockEntity) elements[i];
+
+			if (mover.isDormant() || mover.isRemoved()) {
+				continue;
+			}
+
+			final Level level = mover.getLevel();
+			final long chunk = ChunkPos.asLong(mover.getBlockPos());
+
+			if (level != lastLevel || chunk != lastChunk) {
+				lastLevel = level;
+				lastChunk = chunk;
+				isTicking = level.shouldTickBlocksAt(chunk);
+			}
+
+			if (isTicking) {
+				mover.tick();
+			}
+		}
+	}
+
+	/** True if movers are ticked by their network instead of individually.  Fixed while the server runs. */
+	public static boolean isBatching() {
+		return isBatching;
+	}
+
+	public static void onServerStarting() {
+		isBatching = AbilityConfig.batchMoverTicks;
+	}
+
+	public static void onServerStopped() {
+		BATCHED.clear();
+	}
+
+	/** Called each server tick.  Does nothing unless batched mover ticks are enabled. */
+	public static void tickBatched() {
+		if (!isBatching) {
+			return;
+		}
+
+		final int limit = BATCHED.size();
+
+		for (int i = 0; i < limit; ++i) {
+			BATCHED.get(i).tickMovers();
+		}
 	}
 
 	@Override
@@ -48,6 +160,11 @@ public class PipeMultiBlock extends AbstractCarrierMultiBlock<PipeMultiBlock.Mem
 
 		@Override
 		protected void beforeOwnerRemoval() {
+			if (blockEntity instanceof ItemMoverBlockEntity) {
+				owner.removeMover((ItemMoverBlockEntity) blockEntity);
+			}
+
+			blockEntity.owner = null;
 			blockEntity.carrier.setParent(null);
 		}
 
@@ -55,6 +172,11 @@ public class PipeMultiBlock extends AbstractCarrierMultiBlock<PipeMultiBlock.Mem
 		@Override
 		protected void afterOwnerAddition() {
 			blockEntity.carrier.setParent(owner.carrier);
+			blockEntity.owner = owner;
+
+			if (blockEntity instanceof ItemMoverBlockEntity) {
+				owner.addMover((ItemMoverBlockEntity) blockEntity);
+			}
 		}
 
 		protected boolean canConnect(Member other) {
@@ -67,6 +189,20 @@ public class PipeMultiBlock extends AbstractCarrierMultiBlock<PipeMultiBlock.Mem
 	}
 
 	@SuppressWarnings("rawtypes")
-	protected static final MultiBlockManager<Member, PipeMultiBlock, SubCarrier> DEVICE_MANAGER = MultiBlockManager.create(
-			PipeMultiBlock::new, (Member a, Member b) -> a != null && a.canConnect(b));
+	protected static MultiBlockManager<Member, PipeMultiBlock, SubCarrier> createDeviceManager(UniversalTransportBus bus) {
+		return MultiBlockManager.create(() -> new PipeMultiBlock(bus), (Member a, Member b) -> a != null && a.canConnect(b));
+	}
+
+	/** Separate managers keep each tier in its own networks so carriers never mix rates. */
+	@SuppressWarnings("rawtypes")
+	protected static final MultiBlockManager<Member, PipeMultiBlock, SubCarrier> UTB1_MANAGER = createDeviceManager(UniversalTransportBus.BASIC);
+	@SuppressWarnings("rawtypes")
+	protected static final MultiBlockManager<Member, PipeMultiBlock, SubCarrier> UTB2_MANAGER = createDeviceManager(UniversalTransportBus.UTB2);
+	@SuppressWarnings("rawtypes")
+	protected static final MultiBlockManager<Member, PipeMultiBlock, SubCarrier> UTB3_MANAGER = createDeviceManager(UniversalTransportBus.UTB3);
+
+	@SuppressWarnings("rawtypes")
+	protected static MultiBlockManager<Member, PipeMultiBlock, SubCarrier> deviceManager(UniversalTransportBus bus) {
+		return bus == UniversalTransportBus.UTB3 ? UTB3_MANAGER : bus == UniversalTransportBus.UTB2 ? UTB2_MANAGER : UTB1_MANAGER;
+	}
 }
@@ -0,0 +1,81 @@
+/*
+ * This file is part of Ability and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.ab.transport;
+
+import java.util.function.Consumer;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectRBTreeMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectSortedMap;
+import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Sessions grouped by consumer priority, so the highest level
+ * below a bound can be found in logarithmic time.
+ */
+class PrioritizedSessions {
+	/** Bound that is above every valid priority. */
+	static final int TOP = Integer.MAX_VALUE;
+	/** Returned when no level exists below a bound. */
+	static final int NONE = Integer.MIN_VALUE;
+
+	private final Int2ObjectRBTreeMap<ObjectLinkedOpenHashSet<UtbCarrierSession>> levels = new Int2ObjectRBTreeMap<>();
+
+	void add(UtbCarrierSession session) {
+		levels.computeIfAbsent(session.priority, p -> new ObjectLinkedOpenHashSet<>()).add(session);
+	}
+
+	void remove(UtbCarrierSession session) {
+		final ObjectLinkedOpenHashSet<UtbCarrierSession> set = levels.get(session.priority);
+
+		if (set != null && set.remove(session) && set.isEmpty()) {
+			levels.remove(session.priority);
+		}
+	}
+
+	boolean isEmpty() {
+		return levels.isEmpty();
+	}
+
+	/** Highest priority strictly below the bound, or {@link #NONE}. */
+	int highestBelow(int bound) {
+		if (levels.isEmpty()) {
+			return NONE;
+		}
+
+		if (bound == TOP) {
+			return levels.lastIntKey();
+		}
+
+		final Int2ObjectSortedMap<ObjectLinkedOpenHashSet<UtbCarrierSession>> head = levels.headMap(bound);
+		return head.isEmpty() ? NONE : head.lastIntKey();
+	}
+
+	@Nullable ObjectLinkedOpenHashSet<UtbCarrierSession> at(int priority) {
+		return levels.get(priority);
+	}
+
+	void forEach(Consumer<UtbCarrierSession> action) {
+		for (final ObjectLinkedOpenHashSet<UtbCarrierSession> set : levels.values()) {
+			set.forEach(action);
+		}
+	}
+}
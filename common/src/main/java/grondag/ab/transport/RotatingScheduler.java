@@ -0,0 +1,78 @@
+/*
+ * This file is part of Ability and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.ab.transport;
+
+import org.jetbrains.annotations.Nullable;
+
+import grondag.fluidity.api.article.ArticleType;
+
+/**
+ * Original scheduler: a saturation counter and a rotating index.
+ * Assumes nodes attempt to transmit in the same sequence each tick.
+ */
+class RotatingScheduler implements UtbScheduler {
+	int lastTickSaturationCounter = 0;
+	int thisTickSaturationCounter = 0;
+	int rotation = 0;
+
+	@Override
+	public void startTick(int thisTick) {
+		if (thisTickSaturationCounter <= 1) {
+			lastTickSaturationCounter = 1;
+		} else {
+			lastTickSaturationCounter = thisTickSaturationCounter;
+			rotation = thisTick % thisTickSaturationCounter;
+		}
+
+		thisTickSaturationCounter = 0;
+	}
+
+	/**
+	 * Each call increments a saturation counter and will receive OK to transmit
+	 * only if network was not saturated last tick or if counter matches a rotating
+	 * index value.
+	 */
+	@Override
+	public boolean shouldTransmit(@Nullable BandwidthShare share) {
+		++thisTickSaturationCounter;
+		return lastTickSaturationCounter == 1 ? true : thisTickSaturationCounter % lastTickSaturationCounter == rotation;
+	}
+
+	@Override
+	public long limit(@Nullable BandwidthShare share, ArticleType<?> type, long requested) {
+		return requested;
+	}
+
+	@Override
+	public void charge(@Nullable BandwidthShare share, ArticleType<?> type, long amount) {
+		// NOOP
+	}
+
+	@Override
+	public int rollbackState() {
+		return thisTickSaturationCounter;
+	}
+
+	@Override
+	public void restoreState(int state) {
+		thisTickSaturationCounter = state;
+	}
+}
@@ -35,6 +35,10 @@ public class StraightPipeBlock extends PipeBlock {
 		super(settings, beFactory, hasGlow);
 	}
 
+	public StraightPipeBlock(Block.Properties settings, BlockEntitySupplier<? extends BlockEntity> beFactory, boolean hasGlow, UniversalTransportBus bus) {
+		super(settings, beFactory, hasGlow, bus);
+	}
+
 	@Override
 	protected void createBlockStateDefinition(Builder<Block, BlockState> builder) {
 		super.createBlockStateDefinition(builder);
@@ -21,21 +21,57 @@
 package grondag.ab.transport;
 
 import java.util.Set;
+import java.util.function.IntSupplier;
 
 import com.google.common.collect.ImmutableSet;
 
+import grondag.ab.AbilityConfig;
 import grondag.fluidity.api.article.ArticleType;
 import grondag.fluidity.wip.api.transport.CarrierType;
 
 public class UniversalTransportBus implements CarrierType {
 	protected static final Set<ArticleType<?>> articleTypes = ImmutableSet.of(ArticleType.ITEM, ArticleType.FLUID);
 
+	/** 1-based tier number, used for lang keys and tooltips. */
+	public final int tier;
+	protected final IntSupplier itemsPerTick;
+	protected final int bufferStacks;
+
+	protected UniversalTransportBus(int tier, IntSupplier itemsPerTick, int bufferStacks) {
+		this.tier = tier;
+		this.itemsPerTick = itemsPerTick;
+		this.bufferStacks = bufferStacks;
+	}
+
+	/**
+	 * Maximum number of items a single device on this bus may move per tick.
+	 * Fluid shares the same rate, counted in whole buckets.
+	 */
+	public int itemsPerTick() {
+		return itemsPerTick.getAsInt();
+	}
+
+	/** Number of full stacks a device buffer on this bus can hold and move in one tick. */
+	public int bufferStacks() {
+		return bufferStacks;
+	}
+
+	public long throttleLocalItem(long requested) {
+		return Math.min(requested, itemsPerTick.getAsInt());
+	}
+
+	public String translationKey() {
+		return "transport.ab.utb" + tier;
+	}
+
 	@Override
 	public Set<ArticleType<?>> articleTypes() {
 		return articleTypes;
 	}
 
-	public static UniversalTransportBus BASIC = new UniversalTransportBus();
+	public static UniversalTransportBus BASIC = new UniversalTransportBus(1, () -> AbilityConfig.utb1ItemsPerTick, 1);
+	public static UniversalTransportBus UTB2 = new UniversalTransportBus(2, () -> AbilityConfig.utb2ItemsPerTick, 1);
+	public static UniversalTransportBus UTB3 = new UniversalTransportBus(3, () -> AbilityConfig.utb3ItemsPerTick, 4);
 
 	public static Set<CarrierType> SET_OF_BASIC = ImmutableSet.of(BASIC);
 }
@@ -24,14 +24,20 @@ import grondag.fluidity.wip.api.transport.CarrierType;
 import grondag.fluidity.wip.base.transport.AggregateCarrier;
 
 public class UtbAggregateCarrier extends AggregateCarrier<UtbCostFunction> {
-	protected final UtbCostFunction costFunction = new UtbCostFunction();
+	protected final UtbCostFunction costFunction;
+	protected final UtbRoutingIndex routingIndex = new UtbRoutingIndex();
 
 	public UtbAggregateCarrier(CarrierType carrierType) {
 		super(carrierType);
+		costFunction = new UtbCostFunction((UniversalTransportBus) carrierType);
 	}
 
 	@Override
 	public UtbCostFunction costFunction() {
 		return costFunction;
 	}
+
+	public UtbRoutingIndex routingIndex() {
+		return routingIndex;
+	}
 }
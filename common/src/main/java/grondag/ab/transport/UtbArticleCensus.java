@@ -0,0 +1,116 @@
+/*
+ * This file is part of Ability and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.ab.transport;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.jetbrains.annotations.Nullable;
+
+import grondag.fluidity.api.article.Article;
+import grondag.fluidity.api.article.ArticleType;
+
+/**
+ * Running totals of the articles published as available on one network,
+ * maintained incrementally as suppliers publish, change or retract their routes.
+ *
+ * <p>Quantities are items for item articles and {@link FluidUnits} for fluids.
+ * Totals are hints for selecting what to request, not guarantees of what can be extracted.
+ */
+public class UtbArticleCensus {
+	/** Totals for one article type, with articles also kept in a list so they can be cycled without iterators. */
+	private static class Tally {
+		private final Object2LongOpenHashMap<Article> quantities = new Object2LongOpenHashMap<>();
+		private final Object2IntOpenHashMap<Article> positions = new Object2IntOpenHashMap<>();
+		private final ObjectArrayList<Article> order = new ObjectArrayList<>();
+
+		Tally() {
+			positions.defaultReturnValue(-1);
+		}
+
+		void add(Article article, long delta) {
+			if (quantities.addTo(article, delta) + delta > 0) {
+				if (!positions.containsKey(article)) {
+					positions.put(article, order.size());
+					order.add(article);
+				}
+			} else {
+				quantities.removeLong(article);
+				final int position = positions.removeInt(article);
+
+				if (position >= 0) {
+					// fill the gap with the last article
+					final Article last = order.pop();
+
+					if (position < order.size()) {
+						order.set(position, last);
+						positions.put(last, position);
+					}
+				}
+			}
+		}
+	}
+
+	private final Tally items = new Tally();
+	private final Tally fluids = new Tally();
+
+	private @Nullable Tally tallyFor(ArticleType<?> type) {
+		return type == ArticleType.ITEM ? items : type == ArticleType.FLUID ? fluids : null;
+	}
+
+	void add(Article article, long delta) {
+		final Tally tally = tallyFor(article.type());
+
+		if (tally != null && delta != 0) {
+			tally.add(article, delta);
+		}
+	}
+
+	public long quantityOf(Article article) {
+		final Tally tally = tallyFor(article.type());
+		return tally == null ? 0 : tally.quantities.getLong(article);
+	}
+
+	/** True if any supplier on the network has published an article of the given type. */
+	public boolean hasAny(ArticleType<?> type) {
+		final Tally tally = tallyFor(type);
+		return tally != null && !tally.order.isEmpty();
+	}
+
+	/**
+	 * Cycles through available articles of a type, wrapping at the end.  Does not allocate.
+	 * Removing an article moves another into its place, so a cycle that spans
+	 * a removal may skip or repeat one article.
+	 *
+	 * @param after article returned by the previous call, or {@link Article#NOTHING} to start over
+	 * @return next available article, or {@link Article#NOTHING} if none are available
+	 */
+	public Article next(ArticleType<?> type, Article after) {
+		final Tally tally = tallyFor(type);
+
+		if (tally == null || tally.order.isEmpty()) {
+			return Article.NOTHING;
+		}
+
+		// absent or nothing starts over
+		return tally.order.get((tally.positions.getInt(after) + 1) % tally.order.size());
+	}
+}
@@ -20,13 +20,26 @@
 
 package grondag.ab.transport;
 
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
 
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.jetbrains.annotations.Nullable;
+
+import net.minecraft.world.CompoundContainer;
+
+import grondag.ab.mixin.CompoundContainerAccessor;
 import grondag.ab.varia.WorldTaskManager;
 import grondag.fluidity.api.article.Article;
+import grondag.fluidity.api.article.ArticleType;
 import grondag.fluidity.api.device.DeviceComponentAccess;
 import grondag.fluidity.api.device.DeviceComponentType;
 import grondag.fluidity.api.fraction.Fraction;
+import grondag.fluidity.base.storage.ForwardingStore;
 import grondag.fluidity.wip.base.transport.BasicCarrier;
 import grondag.fluidity.wip.base.transport.BasicCarrierSession;
 import grondag.fluidity.wip.base.transport.BroadcastConsumer;
@@ -36,6 +49,43 @@ public class UtbCarrierSession extends BasicCarrierSession<UtbCostFunction> {
 	long lastTick = 0;
 	boolean shouldTransmit = false;
 
+	/** Consumer priority in the routing index.  Higher is filled first. */
+	int priority = ConsumerPriority.NORMAL;
+
+	/**
+	 * Stores or inventories the attached device reads from or writes to, if any.  Routes between
+	 * sessions that resolve to the same storage only move articles back where they came from.
+	 */
+	private Object[] storageOrigins = NO_ORIGINS;
+
+	private static final Object[] NO_ORIGINS = new Object[0];
+
+	/** Bandwidth accounting for the network scheduler. */
+	final BandwidthShare share = new BandwidthShare();
+
+	/** True once the attached device publishes routes.  Sessions that never do are opaque to the routing index. */
+	boolean isIndexed = false;
+	boolean acceptsAny = false;
+	/** Published quantity by article, in census units. */
+	private final Object2LongOpenHashMap<Article> supplies = new Object2LongOpenHashMap<>();
+	/** Standing demands: capacity by article this node is waiting to receive. */
+	private final Object2LongOpenHashMap<Article> demands = new Object2LongOpenHashMap<>();
+	/** Count of device contexts holding each demand, so one context withdrawing does not cancel another's. */
+	private final Object2IntOpenHashMap<Article> demandHolders = new Object2IntOpenHashMap<>();
+	/**
+	 * Supply event counts by article type, advanced by the routing index when supply that
+	 * could satisfy a demand appears.  Each waiting context compares against the count it
+	 * last saw, so several contexts on one session can wait independently.
+	 */
+	private int itemSupplyEvents = 0;
+	private int fluidSupplyEvents = 0;
+
+	/** Articles this node recently refused, with the tick at which each entry lapses. */
+	private final Object2IntOpenHashMap<Article> saturated = new Object2IntOpenHashMap<>();
+
+	/** Ticks a refusal is honored if the device never reports freed capacity. */
+	private static final int SATURATION_TICKS = 100;
+
 	public UtbCarrierSession(BasicCarrier<UtbCostFunction> carrier, Function<DeviceComponentType<?>, DeviceComponentAccess<?>> componentFunction) {
 		super(carrier, componentFunction);
 	}
@@ -54,13 +104,283 @@ public class UtbCarrierSession extends BasicCarrierSession<UtbCostFunction> {
 		final int thisTick = WorldTaskManager.tickCounter();
 
 		if (thisTick > lastTick) {
-			shouldTransmit = carrier.effectiveCarrier().costFunction().shouldTransmit();
+			shouldTransmit = carrier.effectiveCarrier().costFunction().shouldTransmit(this);
 			lastTick = thisTick;
 		}
 
 		return shouldTransmit;
 	}
 
+	/** Sets this node's relative share of network bandwidth when fair-share scheduling is enabled.  Default is 1. */
+	public void setWeight(int weight) {
+		share.weight = Math.max(1, weight);
+	}
+
+	/** Identifies the storage behind the attached device, or null if none.  Forwarding stores may be passed as-is. */
+	public void setStorageOrigin(@Nullable Object storageOrigin) {
+		setStorageOrigins(new Object[] {storageOrigin}, 1);
+	}
+
+	/**
+	 * For devices that serve more than one storage.  Null entries are ignored.
+	 * Double chests are recorded as their halves because every lookup of one
+	 * returns a new {@link CompoundContainer}.
+	 */
+	public void setStorageOrigins(Object[] storageOrigins, int count) {
+		final ObjectArrayList<Object> result = new ObjectArrayList<>(count);
+
+		for (int i = 0; i < count; ++i) {
+			addOrigin(result, storageOrigins[i]);
+		}
+
+		this.storageOrigins = result.isEmpty() ? NO_ORIGINS : result.toArray();
+	}
+
+	private static void addOrigin(ObjectArrayList<Object> origins, @Nullable Object origin) {
+		if (origin instanceof final CompoundContainerAccessor compound) {
+			addOrigin(origins, compound.ab_container1());
+			addOrigin(origins, compound.ab_container2());
+		} else if (origin != null) {
+			origins.add(origin);
+		}
+	}
+
+	/**
+	 * True if both sessions move articles in or out of the same storage.  Forwarding stores
+	 * are resolved when checked so that members of one multiblock compare as equal.
+	 */
+	public boolean sharesStorage(UtbCarrierSession other) {
+		for (final Object origin : storageOrigins) {
+			final Object key = storageKey(origin);
+
+			if (key != null) {
+				for (final Object otherOrigin : other.storageOrigins) {
+					if (key == storageKey(otherOrigin)) {
+						return true;
+					}
+				}
+			}
+		}
+
+		return false;
+	}
+
+	private static @Nullable Object storageKey(@Nullable Object origin) {
+		Object result = origin;
+
+		while (result instanceof final ForwardingStore forwarding) {
+			result = forwarding.getWrapped();
+		}
+
+		return result;
+	}
+
+	/**
+	 * Reads the attached device's {@link ConsumerPriority} component and re-files this
+	 * session in the routing index if it changed.  Devices call this after loading and
+	 * whenever their priority changes.
+	 */
+	public void refreshPriority() {
+		final int newPriority = getComponent(ConsumerPriority.CONSUMER_PRIORITY_COMPONENT).get().consumerPriority();
+
+		if (newPriority != priority) {
+			final UtbRoutingIndex index = routingIndex();
+
+			if (index == null) {
+				priority = newPriority;
+			} else {
+				index.changePriority(this, newPriority);
+			}
+		}
+	}
+
+	private UtbRoutingIndex routingIndex() {
+		return ((UtbSubCarrier) carrier).routingIndex();
+	}
+
+	/**
+	 * Signals that the attached device will publish its routes, even if it has none yet.
+	 * Called implicitly by the other publishing methods.
+	 */
+	public void enableRouting() {
+		if (!isIndexed) {
+			isIndexed = true;
+			final UtbRoutingIndex index = routingIndex();
+
+			if (index != null) {
+				index.onIndexed(this);
+			}
+		}
+	}
+
+	/**
+	 * Publishes the quantity of an article available from this node, or retracts it if zero.
+	 * Quantities are in {@link UtbArticleCensus} units.
+	 */
+	public void setSupply(Article article, long quantity) {
+		enableRouting();
+
+		final long prior = quantity <= 0 ? supplies.removeLong(article) : supplies.put(article, quantity);
+
+		if (prior == quantity || prior == 0 && quantity <= 0) {
+			return;
+		}
+
+		final UtbRoutingIndex index = routingIndex();
+
+		if (index != null) {
+			if (prior == 0) {
+				index.addSupplier(article, this, quantity);
+			} else if (quantity <= 0) {
+				index.removeSupplier(article, this, prior);
+			} else {
+				index.changeSupply(article, quantity - prior);
+			}
+		}
+	}
+
+	/**
+	 * Posts a standing demand for an article, or withdraws it if capacity is zero.
+	 * Suppliers pushing that article will find this node before nodes that accept anything,
+	 * and the node is signalled when new supply of the article is published.
+	 */
+	public void setDemand(Article article, long capacity) {
+		enableRouting();
+
+		final long prior = capacity <= 0 ? demands.removeLong(article) : demands.put(article, capacity);
+
+		if ((prior == 0) == (capacity <= 0)) {
+			// no change in membership - capacity is only a hint
+			return;
+		}
+
+		final UtbRoutingIndex index = routingIndex();
+
+		if (index != null) {
+			if (prior == 0) {
+				index.addConsumer(article, this);
+			} else {
+				index.removeConsumer(article, this);
+			}
+		}
+	}
+
+	/**
+	 * Posts a demand on behalf of one of several contexts sharing this session.
+	 * The demand stands until every context that holds it calls {@link #releaseDemand(Article)}.
+	 */
+	public void holdDemand(Article article, long capacity) {
+		assert capacity > 0;
+		demandHolders.addTo(article, 1);
+		setDemand(article, capacity);
+	}
+
+	/** Withdraws one context's hold on a demand posted with {@link #holdDemand(Article, long)}. */
+	public void releaseDemand(Article article) {
+		final int holders = demandHolders.addTo(article, -1) - 1;
+
+		if (holders <= 0) {
+			demandHolders.removeInt(article);
+			setDemand(article, 0);
+		}
+	}
+
+	public long demandFor(Article article) {
+		return demands.getLong(article);
+	}
+
+	void signalSupply() {
+		++itemSupplyEvents;
+		++fluidSupplyEvents;
+	}
+
+	public void signalSupply(ArticleType<?> type) {
+		if (type == ArticleType.FLUID) {
+			++fluidSupplyEvents;
+		} else {
+			++itemSupplyEvents;
+		}
+	}
+
+	/**
+	 * Count of supply events of the given type.  A context that found nothing to pull
+	 * records this and can skip pulling until it changes.
+	 */
+	public int supplyEvents(ArticleType<?> type) {
+		return type == ArticleType.FLUID ? fluidSupplyEvents : itemSupplyEvents;
+	}
+
+	/**
+	 * Marks this node as unable to accept the article for now.  The routing index skips
+	 * it for that article until {@link #clearSaturation()} or the mark lapses.
+	 */
+	public void setSaturated(Article article) {
+		saturated.put(article, WorldTaskManager.tickCounter() + SATURATION_TICKS);
+	}
+
+	public boolean isSaturated(Article article) {
+		if (saturated.isEmpty()) {
+			return false;
+		}
+
+		final int expiry = saturated.getInt(article);
+
+		if (expiry == 0) {
+			return false;
+		} else if (WorldTaskManager.tickCounter() < expiry) {
+			return true;
+		} else {
+			saturated.removeInt(article);
+			return false;
+		}
+	}
+
+	/**
+	 * Devices call this when they free capacity.  Clears saturation marks and any
+	 * network backpressure that may have resulted from them.
+	 */
+	public void clearSaturation() {
+		if (saturated.isEmpty()) {
+			return;
+		}
+
+		final UtbRoutingIndex index = routingIndex();
+
+		if (index != null) {
+			if (acceptsAny) {
+				index.releaseBackpressure();
+			} else {
+				saturated.keySet().forEach(index::releaseBackpressure);
+			}
+		}
+
+		saturated.clear();
+	}
+
+	/** Publishes that this node will accept any article its consumer allows. */
+	public void setAcceptsAny(boolean acceptsAny) {
+		enableRouting();
+
+		if (this.acceptsAny != acceptsAny) {
+			this.acceptsAny = acceptsAny;
+			final UtbRoutingIndex index = routingIndex();
+
+			if (index != null) {
+				index.setAcceptsAny(this, acceptsAny);
+			}
+		}
+	}
+
+	void forEachSupply(ObjLongConsumer<Article> action) {
+		for (final Object2LongMap.Entry<Article> e : supplies.object2LongEntrySet()) {
+			action.accept(e.getKey(), e.getLongValue());
+		}
+	}
+
+	void forEachDemand(Consumer<Article> action) {
+		demands.keySet().forEach(action);
+	}
+
 	protected class UtbBroadcastSupplier extends BroadcastSupplier<UtbCostFunction> {
 		public UtbBroadcastSupplier(UtbCarrierSession fromNode) {
 			super(fromNode);
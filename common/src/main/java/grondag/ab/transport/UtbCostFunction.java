@@ -22,9 +22,12 @@ package grondag.ab.transport;
 
 import java.util.function.Consumer;
 
+import org.jetbrains.annotations.Nullable;
+
 import grondag.ab.AbilityConfig;
 import grondag.ab.varia.WorldTaskManager;
 import grondag.fluidity.api.article.Article;
+import grondag.fluidity.api.article.ArticleType;
 import grondag.fluidity.api.fraction.Fraction;
 import grondag.fluidity.api.transact.Transaction;
 import grondag.fluidity.api.transact.TransactionContext;
@@ -32,66 +35,65 @@ import grondag.fluidity.wip.api.transport.CarrierSession;
 import grondag.fluidity.wip.base.transport.CarrierCostFunction;
 
 public class UtbCostFunction implements CarrierCostFunction {
+	private static final long BALANCE_MASK = 0xFFFFFFL;
+
+	protected final UniversalTransportBus bus;
+	protected final UtbScheduler scheduler;
+
 	/** Tick when we last computed limits. */
 	int lastTick = 0;
 
-	int lastTickSaturationCounter = 0;
-	int thisTickSaturationCounter = 0;
-	int rotation = 0;
+	/** Item and fluid bandwidth are budgeted separately so one cannot starve the other. */
+	int itemBalance;
+	int fluidBalance;
 
-	int balance = AbilityConfig.utb1ItemsPerTick;
+	public UtbCostFunction(UniversalTransportBus bus) {
+		this.bus = bus;
+		scheduler = UtbScheduler.create(bus, AbilityConfig.fairShareBandwidth);
+		itemBalance = bus.itemsPerTick();
+		fluidBalance = itemBalance;
+	}
 
 	/**
-	 * Implements a sort of fairness mechanism and assumes nodes will attempt to
-	 * transmit in the same sequence each tick.
-	 *
-	 * <p>Each call increments a saturation counter and will receive OK to transmit
-	 * only if network was not saturated last tick or if counter matches a rotating
-	 * index value.
-	 *
+	 * Asks the network scheduler whether the session may transmit this tick.
 	 * @return true if node should transmit
 	 */
-	public boolean shouldTransmit() {
+	public boolean shouldTransmit(@Nullable UtbCarrierSession session) {
 		refresh();
 		Transaction.selfEnlistIfOpen(this);
-		++thisTickSaturationCounter;
-		return lastTickSaturationCounter == 1 ? true : thisTickSaturationCounter % lastTickSaturationCounter == rotation;
+		return scheduler.shouldTransmit(session == null ? null : session.share);
 	}
 
 	protected void refresh() {
-		final int thisTick = WorldTaskManager.tickCounter();
-		final int perTick = AbilityConfig.utb1ItemsPerTick;
-
-		if (thisTick > lastTick) {
-			balance += (thisTick - lastTick) * perTick;
+		refresh(WorldTaskManager.tickCounter());
+	}
 
-			if (balance > perTick) {
-				balance = perTick;
-			}
+	void refresh(int thisTick) {
+		final int perTick = bus.itemsPerTick();
 
+		if (thisTick > lastTick) {
+			final int refill = (thisTick - lastTick) * perTick;
+			itemBalance = Math.min(perTick, itemBalance + refill);
+			fluidBalance = Math.min(perTick, fluidBalance + refill);
 			lastTick = thisTick;
-
-			if (thisTickSaturationCounter <= 1) {
-				lastTickSaturationCounter = 1;
-			} else {
-				lastTickSaturationCounter = thisTickSaturationCounter;
-				rotation = thisTick % thisTickSaturationCounter;
-			}
-
-			thisTickSaturationCounter = 0;
+			scheduler.startTick(thisTick);
 		}
 	}
 
 	private final Consumer<TransactionContext> rollbackHandler = ctx -> {
 		if (!ctx.isCommited()) {
 			final long state = ctx.getState();
-			balance = (int) (state & 0xFFFFFFFFL);
-			thisTickSaturationCounter = (int) (state >>> 32);
+			final int item = (int) (state & BALANCE_MASK);
+			final int fluid = (int) ((state >>> 24) & BALANCE_MASK);
+			itemBalance = item;
+			fluidBalance = fluid;
+			scheduler.restoreState((int) (state >>> 48));
 		}
 	};
 
+	// packs both balances (24 bits each) and the scheduler state (16 bits)
 	private final TransactionDelegate txDelegate = ctx -> {
-		ctx.setState(((long) thisTickSaturationCounter << 32) | balance);
+		ctx.setState(((long) (scheduler.rollbackState() & 0xFFFF) << 48) | ((fluidBalance & BALANCE_MASK) << 24) | (itemBalance & BALANCE_MASK));
 		return rollbackHandler;
 	};
 
@@ -100,6 +102,33 @@ public class UtbCostFunction implements CarrierCostFunction {
 		return txDelegate;
 	}
 
+	private static @Nullable BandwidthShare share(CarrierSession sender) {
+		return sender instanceof UtbCarrierSession ? ((UtbCarrierSession) sender).share : null;
+	}
+
+	private long grant(CarrierSession sender, Article item, long requested, boolean simulate) {
+		return grant(share(sender), item.type().isFluid(), requested, simulate);
+	}
+
+	/** Grants up to {@code requested} whole units from the balance for the given type. */
+	long grant(@Nullable BandwidthShare share, boolean isFluid, long requested, boolean simulate) {
+		final int balance = isFluid ? fluidBalance : itemBalance;
+		final ArticleType<?> type = isFluid ? ArticleType.FLUID : ArticleType.ITEM;
+		final long result = balance > 0 ? scheduler.limit(share, type, Math.min(requested, balance)) : 0;
+
+		if (!simulate && result != 0) {
+			if (isFluid) {
+				fluidBalance -= result;
+			} else {
+				itemBalance -= result;
+			}
+
+			scheduler.charge(share, type, result);
+		}
+
+		return result;
+	}
+
 	@Override
 	public long apply(CarrierSession sender, Article item, long count, boolean simulate) {
 		if (count == 0) {
@@ -110,13 +139,7 @@ public class UtbCostFunction implements CarrierCostFunction {
 
 		Transaction.selfEnlistIfOpen(this);
 
-		final long result = balance > 0 ? Math.min(count, balance) : 0;
-
-		if (!simulate && result != 0) {
-			balance -= result;
-		}
-
-		return result;
+		return grant(sender, item, count, simulate);
 	}
 
 	@Override
@@ -129,10 +152,12 @@ public class UtbCostFunction implements CarrierCostFunction {
 
 		Transaction.selfEnlistIfOpen(this);
 
-		final Fraction result = volume.ceil() > balance ? (balance > 0 ? Fraction.of(balance) : Fraction.ZERO) : volume;
+		final long wanted = volume.ceil();
+		final long granted = grant(sender, item, wanted, true);
+		final Fraction result = granted >= wanted ? volume : Fraction.of(granted);
 
 		if (!simulate && !result.isZero()) {
-			balance -= result.whole();
+			grant(sender, item, result == volume ? wanted : granted, false);
 		}
 
 		return result;
@@ -148,12 +173,7 @@ public class UtbCostFunction implements CarrierCostFunction {
 
 		Transaction.selfEnlistIfOpen(this);
 
-		final long result = balance > 0 ? Math.min((numerator + divisor - 1) / divisor, balance) : 0;
-
-		if (!simulate && result != 0) {
-			balance -= result;
-		}
-
-		return result * divisor;
+		// grants are whole units so never report more than was asked for
+		return Math.min(numerator, grant(sender, item, (numerator + divisor - 1) / divisor, simulate) * divisor);
 	}
 }
@@ -0,0 +1,368 @@
+/*
+ * This file is part of Ability and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.ab.transport;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectLinkedOpenHashSet;
+
+import grondag.ab.varia.WorldTaskManager;
+import grondag.fluidity.api.article.Article;
+import grondag.fluidity.api.article.ArticleType;
+import grondag.fluidity.api.storage.ArticleFunction;
+import grondag.fluidity.wip.api.transport.CarrierNode;
+import grondag.fluidity.wip.api.transport.CarrierSession;
+
+/**
+ * Maps articles to the sessions on a network that can supply or accept them,
+ * so that routing does not require a broadcast scan of every node.
+ *
+ * <p>Sessions publish their own capabilities via {@link UtbCarrierSession} and
+ * the index is kept current as sessions attach, detach or change content.
+ * Entries are hints: lookups still confirm with {@link ArticleFunction#canApply(Article)}
+ * and skip entries that fail.
+ *
+ * <p>Consumers may post standing demands for specific articles.  Demands are
+ * preferred when routing pushed supply and their sessions are signalled when
+ * matching supply is published, so they need not poll while waiting.
+ *
+ * <p>Consumers that refuse an article are marked saturated and skipped for it.  When
+ * no consumer remains for an article the network is under backpressure for it and
+ * suppliers stop offering it until a consumer frees capacity or the entry lapses.
+ *
+ * <p>Sessions that never publish anything (devices from other mods, for example)
+ * are counted as opaque.  While any opaque sessions are attached the index is
+ * not authoritative and callers should fall back to a broadcast search on a miss.
+ */
+public class UtbRoutingIndex {
+	private final Object2ObjectOpenHashMap<Article, ObjectLinkedOpenHashSet<UtbCarrierSession>> suppliers = new Object2ObjectOpenHashMap<>();
+	private final Object2ObjectOpenHashMap<Article, PrioritizedSessions> consumers = new Object2ObjectOpenHashMap<>();
+	private final PrioritizedSessions anyConsumers = new PrioritizedSessions();
+	private final UtbArticleCensus census = new UtbArticleCensus();
+	private int opaqueCount = 0;
+	/** Articles no consumer could take when last routed, with the tick at which each entry lapses. */
+	private final Object2IntOpenHashMap<Article> backpressure = new Object2IntOpenHashMap<>();
+
+	/** Ticks before an article under backpressure is offered again without a capacity signal. */
+	private static final int BACKPRESSURE_TICKS = 20;
+
+	/**
+	 * True when every attached session publishes its routes and a miss
+	 * means no node on the network can handle the article.
+	 */
+	public boolean isAuthoritative() {
+		return opaqueCount == 0;
+	}
+
+	/** Totals of published supply on this network.  Complete only when {@link #isAuthoritative()}. */
+	public UtbArticleCensus census() {
+		return census;
+	}
+
+	void attach(UtbCarrierSession session) {
+		// supply on the new network is unknown to this session
+		session.signalSupply();
+
+		if (session.isIndexed) {
+			session.forEachSupply((a, q) -> addSupplier(a, session, q));
+			session.forEachDemand(a -> addConsumer(a, session));
+
+			if (session.acceptsAny) {
+				anyConsumers.add(session);
+				releaseBackpressure();
+			}
+		} else {
+			++opaqueCount;
+		}
+	}
+
+	void detach(UtbCarrierSession session) {
+		if (session.isIndexed) {
+			session.forEachSupply((a, q) -> removeSupplier(a, session, q));
+			session.forEachDemand(a -> removeConsumer(a, session));
+			anyConsumers.remove(session);
+		} else {
+			--opaqueCount;
+			assert opaqueCount >= 0;
+		}
+	}
+
+	/** Called once when a previously opaque session first publishes a route. */
+	void onIndexed(UtbCarrierSession session) {
+		--opaqueCount;
+		assert opaqueCount >= 0;
+	}
+
+	void addSupplier(Article article, UtbCarrierSession session, long quantity) {
+		suppliers.computeIfAbsent(article, a -> new ObjectLinkedOpenHashSet<>()).add(session);
+		census.add(article, quantity);
+		signalDemand(article);
+	}
+
+	void removeSupplier(Article article, UtbCarrierSession session, long quantity) {
+		remove(suppliers, article, session);
+		census.add(article, -quantity);
+	}
+
+	void changeSupply(Article article, long delta) {
+		census.add(article, delta);
+
+		if (delta > 0) {
+			signalDemand(article);
+		}
+	}
+
+	/** Wakes sessions waiting on this article, or on anything. */
+	private void signalDemand(Article article) {
+		final PrioritizedSessions waiting = consumers.get(article);
+
+		final ArticleType<?> type = article.type();
+
+		if (waiting != null) {
+			waiting.forEach(s -> s.signalSupply(type));
+		}
+
+		anyConsumers.forEach(s -> s.signalSupply(type));
+	}
+
+	/** True if any session has a standing demand for the article. */
+	public boolean hasDemand(Article article) {
+		return consumers.containsKey(article);
+	}
+
+	void addConsumer(Article article, UtbCarrierSession session) {
+		consumers.computeIfAbsent(article, a -> new PrioritizedSessions()).add(session);
+		releaseBackpressure(article);
+	}
+
+	void removeConsumer(Article article, UtbCarrierSession session) {
+		final PrioritizedSessions sessions = consumers.get(article);
+
+		if (sessions != null) {
+			sessions.remove(session);
+
+			if (sessions.isEmpty()) {
+				consumers.remove(article);
+			}
+		}
+	}
+
+	/** Moves a session's consumer entries to a new priority level. */
+	void changePriority(UtbCarrierSession session, int priority) {
+		if (session.isIndexed) {
+			session.forEachDemand(a -> removeConsumer(a, session));
+
+			if (session.acceptsAny) {
+				anyConsumers.remove(session);
+			}
+		}
+
+		session.priority = priority;
+
+		if (session.isIndexed) {
+			session.forEachDemand(a -> addConsumer(a, session));
+
+			if (session.acceptsAny) {
+				anyConsumers.add(session);
+			}
+		}
+	}
+
+	void setAcceptsAny(UtbCarrierSession session, boolean acceptsAny) {
+		if (acceptsAny) {
+			anyConsumers.add(session);
+			releaseBackpressure();
+		} else {
+			anyConsumers.remove(session);
+		}
+	}
+
+	/**
+	 * True if no consumer on the network could take the article when last routed.
+	 * Suppliers should not offer it.  Never true unless the index is authoritative.
+	 */
+	public boolean isBackpressured(Article article) {
+		if (backpressure.isEmpty() || !isAuthoritative()) {
+			return false;
+		}
+
+		final int expiry = backpressure.getInt(article);
+
+		if (expiry == 0) {
+			return false;
+		} else if (WorldTaskManager.tickCounter() < expiry) {
+			return true;
+		} else {
+			backpressure.removeInt(article);
+			return false;
+		}
+	}
+
+	/**
+	 * True if some consumer could take the article for someone, ignoring the filters that
+	 * depend on the requester.  A miss in {@link #consumerOf(Article, CarrierSession)} while
+	 * this is true only means the requester has no route of its own, not that the network is full.
+	 */
+	public boolean hasOpenConsumer(Article article) {
+		final PrioritizedSessions specific = consumers.get(article);
+		return specific != null && hasOpenConsumer(specific, article) || hasOpenConsumer(anyConsumers, article);
+	}
+
+	private static boolean hasOpenConsumer(PrioritizedSessions sessions, Article article) {
+		int level = sessions.highestBelow(PrioritizedSessions.TOP);
+
+		while (level != PrioritizedSessions.NONE) {
+			for (final UtbCarrierSession node : sessions.at(level)) {
+				if (node.isValid() && !node.isSaturated(article) && node.getComponent(ArticleFunction.CONSUMER_COMPONENT).get().canApply(article)) {
+					return true;
+				}
+			}
+
+			level = sessions.highestBelow(level);
+		}
+
+		return false;
+	}
+
+	/** Called when routing found no consumer for the article and {@link #hasOpenConsumer(Article)} is false. */
+	public void applyBackpressure(Article article) {
+		if (isAuthoritative()) {
+			backpressure.put(article, WorldTaskManager.tickCounter() + BACKPRESSURE_TICKS);
+		}
+	}
+
+	void releaseBackpressure(Article article) {
+		backpressure.removeInt(article);
+	}
+
+	void releaseBackpressure() {
+		backpressure.clear();
+	}
+
+	private static void remove(Object2ObjectOpenHashMap<Article, ObjectLinkedOpenHashSet<UtbCarrierSession>> map, Article article, UtbCarrierSession session) {
+		final ObjectLinkedOpenHashSet<UtbCarrierSession> set = map.get(article);
+
+		if (set != null && set.remove(session) && set.isEmpty()) {
+			map.remove(article);
+		}
+	}
+
+	/**
+	 * Finds a session other than the requester that can supply the given article.
+	 * Successful results rotate to the back of their set so that repeated
+	 * requests are spread across all capable suppliers.
+	 *
+	 * @return {@link CarrierNode#INVALID} if no indexed supplier is found
+	 */
+	public CarrierNode supplierOf(Article article, CarrierSession requester) {
+		return find(suppliers.get(article), article, requester, false);
+	}
+
+	/**
+	 * Finds a session other than the requester that can accept the given article.
+	 * Higher priority consumers are always preferred.  Within a priority level, sessions
+	 * that demand the article specifically come before those that accept anything.
+	 *
+	 * @return {@link CarrierNode#INVALID} if no indexed consumer is found
+	 */
+	public CarrierNode consumerOf(Article article, CarrierSession requester) {
+		final PrioritizedSessions specific = consumers.get(article);
+		int bound = PrioritizedSessions.TOP;
+
+		while (true) {
+			final int specificLevel = specific == null ? PrioritizedSessions.NONE : specific.highestBelow(bound);
+			final int anyLevel = anyConsumers.highestBelow(bound);
+			final int level = Math.max(specificLevel, anyLevel);
+
+			if (level == PrioritizedSessions.NONE) {
+				return CarrierNode.INVALID;
+			}
+
+			if (specificLevel == level) {
+				final CarrierNode result = find(specific.at(level), article, requester, true);
+
+				if (result.isValid()) {
+					return result;
+				}
+			}
+
+			if (anyLevel == level) {
+				final CarrierNode result = find(anyConsumers.at(level), article, requester, true);
+
+				if (result.isValid()) {
+					return result;
+				}
+			}
+
+			bound = level;
+		}
+	}
+
+	/**
+	 * True if a consumer of higher priority than the given node is registered for the
+	 * article, specifically or for anything.  Cached routes to the node should not be
+	 * reused in that case, or a higher priority sink that frees room would be bypassed.
+	 * Nodes that do not publish routes are outranked by any registered consumer.
+	 */
+	public boolean isOutranked(Article article, CarrierNode node) {
+		final PrioritizedSessions specific = consumers.get(article);
+		final int top = Math.max(specific == null ? PrioritizedSessions.NONE : specific.highestBelow(PrioritizedSessions.TOP), anyConsumers.highestBelow(PrioritizedSessions.TOP));
+
+		if (top == PrioritizedSessions.NONE) {
+			return false;
+		}
+
+		return !(node instanceof final UtbCarrierSession session && session.priority >= top);
+	}
+
+	/** True if a route between the two would return articles to the storage they came from. */
+	public static boolean isLoop(CarrierSession requester, CarrierNode node) {
+		return requester instanceof final UtbCarrierSession session && node instanceof final UtbCarrierSession other && session.sharesStorage(other);
+	}
+
+	private static CarrierNode find(ObjectLinkedOpenHashSet<UtbCarrierSession> set, Article article, CarrierSession requester, boolean isConsumer) {
+		if (set == null || set.isEmpty()) {
+			return CarrierNode.INVALID;
+		}
+
+		final int limit = set.size();
+
+		for (int i = 0; i < limit; ++i) {
+			final UtbCarrierSession node = set.first();
+
+			if (node != requester && node.isValid() && !isLoop(requester, node) && !(isConsumer && node.isSaturated(article))) {
+				final ArticleFunction func = isConsumer
+						? node.getComponent(ArticleFunction.CONSUMER_COMPONENT).get()
+						: node.getComponent(ArticleFunction.SUPPLIER_COMPONENT).get();
+
+				if (func.canApply(article)) {
+					set.addAndMoveToLast(node);
+					return node;
+				}
+			}
+
+			// sessions retract their own routes, so only rotate here
+			set.addAndMoveToLast(node);
+		}
+
+		return CarrierNode.INVALID;
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * This file is part of Ability and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.ab.transport;
+
+import org.jetbrains.annotations.Nullable;
+
+import grondag.fluidity.api.article.ArticleType;
+
+/**
+ * Decides how a network's per-tick bandwidth is shared among the sessions that
+ * request it.  The owning {@link UtbCostFunction} enforces the network total;
+ * schedulers only decide who may transmit and how much of the total each may take.
+ */
+public interface UtbScheduler {
+	/** Called once at the start of each tick that sees any request. */
+	void startTick(int thisTick);
+
+	/** True if the session should attempt to transmit this tick. */
+	boolean shouldTransmit(@Nullable BandwidthShare share);
+
+	/** Reduces a request to the session's current share. */
+	long limit(@Nullable BandwidthShare share, ArticleType<?> type, long requested);
+
+	/** Records bandwidth granted to a session. */
+	void charge(@Nullable BandwidthShare share, ArticleType<?> type, long amount);
+
+	/**
+	 * Scheduler state to include in transaction rollback.  Must fit in 16 bits.
+	 * Restoring it must also undo charges made since it was taken.
+	 */
+	int rollbackState();
+
+	void restoreState(int state);
+
+	static UtbScheduler create(UniversalTransportBus bus, boolean fairShare) {
+		return fairShare ? new FairShareScheduler(bus) : new RotatingScheduler();
+	}
+}
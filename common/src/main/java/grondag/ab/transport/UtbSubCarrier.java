@@ -22,23 +22,60 @@ package grondag.ab.transport;
 
 import java.util.function.Function;
 
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.jetbrains.annotations.Nullable;
+
 import grondag.fluidity.api.device.DeviceComponentAccess;
 import grondag.fluidity.api.device.DeviceComponentType;
 import grondag.fluidity.wip.api.transport.CarrierSession;
-import grondag.fluidity.wip.api.transport.CarrierType;
 import grondag.fluidity.wip.base.transport.AggregateCarrier;
 import grondag.fluidity.wip.base.transport.SubCarrier;
 
 public class UtbSubCarrier extends SubCarrier<UtbCostFunction> {
+	protected final UniversalTransportBus bus;
 	protected UtbCostFunction costFunction;
+	protected UtbAggregateCarrier utbParent = null;
+	protected final ObjectArrayList<UtbCarrierSession> sessions = new ObjectArrayList<>();
 
-	public UtbSubCarrier(CarrierType carrierType) {
-		super(carrierType);
+	public UtbSubCarrier(UniversalTransportBus bus) {
+		super(bus);
+		this.bus = bus;
 	}
 
 	@Override
 	protected CarrierSession createSession(Function<DeviceComponentType<?>, DeviceComponentAccess<?>> componentFunction) {
-		return new UtbCarrierSession(this, componentFunction);
+		final UtbCarrierSession result = new UtbCarrierSession(this, componentFunction);
+		sessions.add(result);
+
+		final UtbRoutingIndex index = routingIndex();
+
+		if (index != null) {
+			index.attach(result);
+		}
+
+		return result;
+	}
+
+	@Override
+	public void detach(CarrierSession node) {
+		super.detach(node);
+
+		if (sessions.remove(node)) {
+			final UtbRoutingIndex index = routingIndex();
+
+			if (index != null) {
+				index.detach((UtbCarrierSession) node);
+			}
+		}
+	}
+
+	/**
+	 * Routing index of the network this carrier belongs to.
+	 * @return null if this carrier is not part of a network
+	 */
+	public @Nullable UtbRoutingIndex routingIndex() {
+		final UtbAggregateCarrier parent = utbParent;
+		return parent == null ? null : parent.routingIndex();
 	}
 
 	@Override
@@ -46,7 +83,7 @@ public class UtbSubCarrier extends SubCarrier<UtbCostFunction> {
 		UtbCostFunction result = costFunction;
 
 		if (result == null) {
-			result = new UtbCostFunction();
+			result = new UtbCostFunction(bus);
 			costFunction = result;
 		}
 
@@ -55,7 +92,23 @@ public class UtbSubCarrier extends SubCarrier<UtbCostFunction> {
 
 	@Override
 	public void setParent(AggregateCarrier<UtbCostFunction> parent) {
+		UtbRoutingIndex index = routingIndex();
+
+		if (index != null) {
+			for (final UtbCarrierSession session : sessions) {
+				index.detach(session);
+			}
+		}
+
 		super.setParent(parent);
 		costFunction = null;
+		utbParent = parent instanceof UtbAggregateCarrier ? (UtbAggregateCarrier) parent : null;
+		index = routingIndex();
+
+		if (index != null) {
+			for (final UtbCarrierSession session : sessions) {
+				index.attach(session);
+			}
+		}
 	}
 }
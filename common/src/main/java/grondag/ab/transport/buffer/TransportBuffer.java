@@ -20,11 +20,18 @@
 
 package grondag.ab.transport.buffer;
 
+import java.util.Arrays;
 import java.util.function.Consumer;
 
+import org.jetbrains.annotations.Nullable;
+
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.util.Mth;
 import net.minecraft.world.item.ItemStack;
 
+import grondag.ab.AbilityConfig;
+import grondag.ab.transport.FluidUnits;
+import grondag.ab.transport.UniversalTransportBus;
 import grondag.ab.transport.UtbHelper;
 import grondag.ab.transport.handler.TransportCarrierContext;
 import grondag.ab.transport.util.TransportStorageContext;
@@ -40,25 +47,36 @@ import grondag.fluidity.api.transact.TransactionParticipant.TransactionDelegate;
 
 public class TransportBuffer implements TransactionDelegate, TransactionParticipant {
 	public class BufferState {
-		private BufferState() { }
+		private BufferState() {
+			Arrays.fill(itemArticle, Article.NOTHING);
+		}
 
-		long itemQuantity = 0;
-		Article itemArticle = Article.NOTHING;
+		/** One (article, quantity) pair per lane.  Sized for the maximum so saved lanes always load. */
+		final long[] itemQuantity = new long[MAX_LANES];
+		final Article[] itemArticle = new Article[MAX_LANES];
 
 		Article fluidArticle = Article.NOTHING;
-		MutableFraction fluidAmount = new MutableFraction();
+		/** Buffered fluid in {@link FluidUnits}. */
+		long fluidUnits = 0;
+
+		/** Incremented on every change. Not saved, but restored on rollback so aborted transfers don't count. */
+		int version = 0;
 
 		public CompoundTag toTag() {
 			final CompoundTag tag = new CompoundTag();
 
-			if (itemQuantity != 0 && !itemArticle.isNothing()) {
-				tag.put("itm", itemArticle.toTag());
-				tag.putLong("itmqty", itemQuantity);
+			for (int i = 0; i < MAX_LANES; ++i) {
+				if (itemQuantity[i] != 0 && !itemArticle[i].isNothing()) {
+					// lane zero keeps the original single-lane keys
+					final String suffix = i == 0 ? "" : Integer.toString(i);
+					tag.put("itm" + suffix, itemArticle[i].toTag());
+					tag.putLong("itmqty" + suffix, itemQuantity[i]);
+				}
 			}
 
-			if (!fluidAmount.isZero() && !fluidArticle.isNothing()) {
+			if (fluidUnits != 0 && !fluidArticle.isNothing()) {
 				tag.put("fld", fluidArticle.toTag());
-				tag.put("fldqty", fluidAmount.toTag());
+				tag.putLong("fldunits", fluidUnits);
 			}
 
 			return tag;
@@ -67,45 +85,167 @@ public class TransportBuffer implements TransactionDelegate, TransactionParticip
 		public void fromTag(CompoundTag tag) {
 			reset();
 
-			if (tag.contains("itm")) {
-				itemArticle = Article.fromTag(tag.get("itm"));
-				itemQuantity = tag.getLong("itmqty");
+			for (int i = 0; i < MAX_LANES; ++i) {
+				final String suffix = i == 0 ? "" : Integer.toString(i);
+
+				if (tag.contains("itm" + suffix)) {
+					itemArticle[i] = Article.fromTag(tag.get("itm" + suffix));
+					itemQuantity[i] = tag.getLong("itmqty" + suffix);
+				}
 			}
 
 			if (tag.contains("fld")) {
 				fluidArticle = Article.fromTag(tag.get("fld"));
-				fluidAmount.readTag(tag.getCompound("fldqty"));
+
+				if (tag.contains("fldunits")) {
+					fluidUnits = tag.getLong("fldunits");
+				} else if (tag.contains("fldqty")) {
+					// buffers saved before fixed-point units
+					final MutableFraction legacy = new MutableFraction();
+					legacy.readTag(tag.getCompound("fldqty"));
+					fluidUnits = FluidUnits.of(legacy);
+				}
 			}
 		}
 
 		public boolean shouldSave() {
-			return itemQuantity != 0 || !fluidAmount.isZero();
+			return hasItems() || fluidUnits != 0;
+		}
+
+		boolean hasItems() {
+			for (int i = 0; i < MAX_LANES; ++i) {
+				if (itemQuantity[i] != 0) {
+					return true;
+				}
+			}
+
+			return false;
 		}
 
 		public void reset() {
-			itemQuantity = 0;
-			itemArticle = Article.NOTHING;
-			fluidAmount.set(Fraction.ZERO);
+			Arrays.fill(itemQuantity, 0);
+			Arrays.fill(itemArticle, Article.NOTHING);
+			fluidUnits = 0;
 			fluidArticle = Article.NOTHING;
 		}
 
 		private void copyFrom(BufferState other) {
-			itemQuantity = other.itemQuantity;
-			itemArticle = other.itemArticle;
-			fluidAmount.set(other.fluidAmount);
+			System.arraycopy(other.itemQuantity, 0, itemQuantity, 0, MAX_LANES);
+			System.arraycopy(other.itemArticle, 0, itemArticle, 0, MAX_LANES);
+			fluidUnits = other.fluidUnits;
 			fluidArticle = other.fluidArticle;
+			version = other.version;
 		}
 	}
 
+	public static final int MAX_LANES = 8;
+
+	protected final UniversalTransportBus bus;
+	/** Lanes that accept new articles.  Lanes beyond this only drain, in case the setting was lowered. */
+	protected final int lanes = Mth.clamp(AbilityConfig.bufferLanes, 1, MAX_LANES);
+	/** Lane to try first on the next flush, so one lane that cannot move does not block the others. */
+	protected int flushLane = 0;
 	protected BufferState state = new BufferState();
 
 	// we keep and reuse this to avoid allocation in most cases
 	protected BufferState rollbackState = new BufferState();
 
+	private Runnable changeListener = NO_LISTENER;
+
+	private static final Runnable NO_LISTENER = () -> { };
+
+	public TransportBuffer(UniversalTransportBus bus) {
+		this.bus = bus;
+	}
+
+	public UniversalTransportBus bus() {
+		return bus;
+	}
+
 	public BufferState state() {
 		return state;
 	}
 
+	/** Sets a callback to run whenever buffer content changes, including changes made by other devices.  Null removes it. */
+	public void onChange(@Nullable Runnable changeListener) {
+		this.changeListener = changeListener == null ? NO_LISTENER : changeListener;
+	}
+
+	/** Changes when content changes.  Compare before and after an operation to detect progress. */
+	public int version() {
+		return state.version;
+	}
+
+	public boolean isEmpty() {
+		return !state.hasItems() && state.fluidUnits == 0;
+	}
+
+	public int lanes() {
+		return lanes;
+	}
+
+	/** Article held in the given lane, or {@link Article#NOTHING}. */
+	public Article itemArticle(int lane) {
+		return state.itemQuantity[lane] == 0 ? Article.NOTHING : state.itemArticle[lane];
+	}
+
+	public long itemQuantity(int lane) {
+		return state.itemQuantity[lane];
+	}
+
+	/** Buffered fluid in {@link FluidUnits}. */
+	public long fluidUnits() {
+		return state.fluidUnits;
+	}
+
+	/** Lane already holding the article, or -1. */
+	private int laneOf(Article article) {
+		final BufferState state = this.state;
+
+		for (int i = 0; i < MAX_LANES; ++i) {
+			if (state.itemQuantity[i] != 0 && state.itemArticle[i].equals(article)) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	/** Lane that can accept the article: the lane already holding it, else the first empty active lane, else -1. */
+	private int laneFor(Article article) {
+		final int result = laneOf(article);
+
+		if (result != -1) {
+			return result;
+		}
+
+		final long[] qty = state.itemQuantity;
+
+		for (int i = 0; i < lanes; ++i) {
+			if (qty[i] == 0) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	private void removeItems(int lane, long howMany) {
+		final BufferState state = this.state;
+		state.itemQuantity[lane] -= howMany;
+
+		assert state.itemQuantity[lane] >= 0;
+
+		if (state.itemQuantity[lane] == 0) {
+			state.itemArticle[lane] = Article.NOTHING;
+		}
+	}
+
+	private void onChanged() {
+		++state.version;
+		changeListener.run();
+	}
+
 	private final Consumer<TransactionContext> rollbackHandler = ctx -> {
 		final BufferState rollbackState = ctx.getState();
 
@@ -138,14 +278,20 @@ public class TransportBuffer implements TransactionDelegate, TransactionParticip
 	public void flushFluidToStorage(TransportStorageContext storageContext) {
 		final BufferState state = this.state;
 
-		if (!state.fluidAmount.isZero()) {
-			final MutableFraction amt = state.fluidAmount;
-			final long div = amt.divisor();
-			state.fluidAmount.subtract(storageContext.accept(state.fluidArticle, amt.numerator() + amt.whole() * div, div), div);
+		if (state.fluidUnits != 0) {
+			final long div = storageContext.unitsFor(state.fluidArticle);
+			final long accepted = storageContext.accept(state.fluidArticle, FluidUnits.toNumerator(state.fluidUnits, div), div);
 
-			assert !amt.isNegative();
+			if (accepted == 0) {
+				return;
+			}
+
+			state.fluidUnits -= FluidUnits.of(accepted, div);
+			onChanged();
+
+			assert state.fluidUnits >= 0;
 
-			if (amt.isZero()) {
+			if (state.fluidUnits == 0) {
 				state.fluidArticle = Article.NOTHING;
 			}
 		}
@@ -153,31 +299,44 @@ public class TransportBuffer implements TransactionDelegate, TransactionParticip
 
 	public void flushItemToStorage(TransportStorageContext storageContext) {
 		final BufferState state = this.state;
+		long budget = bus.itemsPerTick();
 
-		if (state.itemQuantity > 0) {
-			long howMany = UtbHelper.throttleUtb1LocalItem(state.itemQuantity);
-			howMany = storageContext.accept(state.itemArticle, howMany, 1);
-			state.itemQuantity -= howMany;
+		for (int n = 0; n < MAX_LANES && budget > 0; ++n) {
+			final int lane = (flushLane + n) % MAX_LANES;
 
-			assert state.itemQuantity >= 0;
+			// storage may accept less than requested per call (one slot at a time) so keep
+			// going until the per-tick allowance is spent or nothing more is accepted
+			while (budget > 0 && state.itemQuantity[lane] > 0) {
+				final long howMany = storageContext.accept(state.itemArticle[lane], Math.min(budget, state.itemQuantity[lane]), 1);
 
-			if (state.itemQuantity == 0) {
-				state.itemArticle = Article.NOTHING;
+				if (howMany == 0) {
+					break;
+				}
+
+				budget -= howMany;
+				removeItems(lane, howMany);
+				onChanged();
 			}
 		}
+
+		flushLane = (flushLane + 1) % MAX_LANES;
 	}
 
+	/** Removes at most one stack.  Call repeatedly to empty a multi-stack buffer. */
 	public ItemStack flushItemToWorld() {
 		final BufferState state = this.state;
 
-		if (state.itemQuantity > 0 && !state.itemArticle.isNothing()) {
-			final ItemStack result = state.itemArticle.toStack(state.itemQuantity);
-			state.itemQuantity = 0;
-			state.itemArticle = Article.NOTHING;
-			return result;
-		} else {
-			return ItemStack.EMPTY;
+		for (int lane = 0; lane < MAX_LANES; ++lane) {
+			if (state.itemQuantity[lane] > 0 && !state.itemArticle[lane].isNothing()) {
+				final long count = Math.min(state.itemQuantity[lane], state.itemArticle[lane].toItem().getMaxStackSize());
+				final ItemStack result = state.itemArticle[lane].toStack(count);
+				removeItems(lane, count);
+				onChanged();
+				return result;
+			}
 		}
+
+		return ItemStack.EMPTY;
 	}
 
 	public void flushItemToCarrier(TransportCarrierContext carrierContext) {
@@ -187,34 +346,52 @@ public class TransportBuffer implements TransactionDelegate, TransactionParticip
 
 		final BufferState state = this.state;
 
-		if (state.itemQuantity == 0) {
-			return;
+		// send from the first lane, starting at the rotating cursor, that has somewhere to go
+		for (int n = 0; n < MAX_LANES; ++n) {
+			final int lane = (flushLane + n) % MAX_LANES;
+
+			if (state.itemQuantity[lane] != 0 && flushLaneToCarrier(carrierContext, lane)) {
+				flushLane = (lane + 1) % MAX_LANES;
+				return;
+			}
 		}
+	}
 
-		final Article article = state.itemArticle;
+	private boolean flushLaneToCarrier(TransportCarrierContext carrierContext, int lane) {
+		final BufferState state = this.state;
+		final Article article = state.itemArticle[lane];
 		final ArticleFunction consumer = carrierContext.consumerFor(article);
 
 		if (consumer == null) {
-			return;
+			return false;
 		}
 
 		try (Transaction tx = Transaction.open()) {
 			tx.enlist(consumer);
 			tx.enlist(this);
 
-			long howMany = UtbHelper.throttleUtb1LocalItem(state.itemQuantity);
-			howMany = carrierContext.throttle(article, howMany, 1, false);
-			howMany = consumer.apply(article, howMany, 1, false);
+			long howMany = bus.throttleLocalItem(state.itemQuantity[lane]);
+			final long offered = carrierContext.throttle(article, howMany, 1, false);
+			howMany = offered == 0 ? 0 : consumer.apply(article, offered, 1, false);
+
+			if (offered > 0 && howMany == 0) {
+				// consumer is full - route around it until it frees capacity
+				carrierContext.reportRefused(article);
+			}
 
 			assert howMany >= 0;
-			assert howMany <= state.itemQuantity;
+			assert howMany <= state.itemQuantity[lane];
 
 			if (howMany > 0) {
-				state.itemQuantity -= howMany;
+				removeItems(lane, howMany);
+				onChanged();
 				tx.commit();
 				carrierContext.resetCooldown();
+				return true;
 			}
 		}
+
+		return false;
 	}
 
 	public void flushFluidToCarrier(TransportCarrierContext carrierContext) {
@@ -223,9 +400,8 @@ public class TransportBuffer implements TransactionDelegate, TransactionParticip
 		}
 
 		final BufferState state = this.state;
-		final MutableFraction amt = state.fluidAmount;
 
-		if (amt.isZero()) {
+		if (state.fluidUnits == 0) {
 			return;
 		}
 
@@ -236,20 +412,31 @@ public class TransportBuffer implements TransactionDelegate, TransactionParticip
 			return;
 		}
 
-		final long div = amt.divisor();
-		long howMuch = amt.numerator() + amt.whole() * div;
+		final long div = FluidUnits.PER_BUCKET;
+		long howMuch = state.fluidUnits;
 
 		try (Transaction tx = Transaction.open()) {
 			tx.enlist(consumer);
 			tx.enlist(this);
 
-			howMuch = carrierContext.throttle(article, howMuch, div, false);
-			howMuch = consumer.apply(article, howMuch, div, false);
+			final long offered = carrierContext.throttle(article, howMuch, div, false);
+			howMuch = offered == 0 ? 0 : consumer.apply(article, offered, div, false);
+
+			if (offered > 0 && howMuch == 0) {
+				carrierContext.reportRefused(article);
+			}
 
 			assert howMuch >= 0;
+			assert howMuch <= state.fluidUnits;
 
 			if (howMuch > 0) {
-				amt.subtract(howMuch, div);
+				state.fluidUnits -= howMuch;
+
+				if (state.fluidUnits == 0) {
+					state.fluidArticle = Article.NOTHING;
+				}
+
+				onChanged();
 				tx.commit();
 				carrierContext.resetCooldown();
 			}
@@ -301,7 +488,19 @@ public class TransportBuffer implements TransactionDelegate, TransactionParticip
 
 		@Override
 		public Article suggestArticle(ArticleType<?> type) {
-			return type == ArticleType.ITEM ? state.itemArticle : state.fluidArticle;
+			if (type == ArticleType.ITEM) {
+				for (int n = 0; n < MAX_LANES; ++n) {
+					final Article result = itemArticle((flushLane + n) % MAX_LANES);
+
+					if (!result.isNothing()) {
+						return result;
+					}
+				}
+
+				return Article.NOTHING;
+			} else {
+				return state.fluidArticle;
+			}
 		}
 
 		protected abstract long applyFluid(Article article, long numerator, long divisor, boolean simulate);
@@ -316,11 +515,11 @@ public class TransportBuffer implements TransactionDelegate, TransactionParticip
 				return 0;
 			}
 
-			if (!state.fluidAmount.isZero() && (!state.fluidArticle.equals(article))) {
+			if (state.fluidUnits != 0 && (!state.fluidArticle.equals(article))) {
 				return 0;
 			}
 
-			final long capacity = divisor - state.fluidAmount.toLong(divisor);
+			final long capacity = FluidUnits.toNumerator(FluidUnits.PER_BUCKET - state.fluidUnits, divisor);
 
 			if (capacity <= 0) {
 				return 0;
@@ -328,9 +527,10 @@ public class TransportBuffer implements TransactionDelegate, TransactionParticip
 
 			final long result = UtbHelper.throttleUtb1LocalFluid(Math.min(numerator, capacity), divisor);
 
-			if (!simulate) {
-				state.fluidAmount.add(result, divisor);
+			if (!simulate && result != 0) {
+				state.fluidUnits += FluidUnits.of(result, divisor);
 				state.fluidArticle = article;
+				onChanged();
 			}
 
 			return result;
@@ -342,23 +542,25 @@ public class TransportBuffer implements TransactionDelegate, TransactionParticip
 				return 0;
 			}
 
-			final long maxCount = article.toItem().getMaxStackSize();
+			final int lane = laneFor(article);
 
-			if (state.itemQuantity != 0 && !state.itemArticle.equals(article)) {
+			if (lane == -1) {
 				return 0;
 			}
 
-			final long capacity = maxCount - state.itemQuantity;
+			final long maxCount = article.toItem().getMaxStackSize() * bus.bufferStacks();
+			final long capacity = maxCount - state.itemQuantity[lane];
 
 			if (capacity <= 0) {
 				return 0;
 			}
 
-			final long result = UtbHelper.throttleUtb1LocalItem(Math.min(qty, capacity));
+			final long result = bus.throttleLocalItem(Math.min(qty, capacity));
 
-			if (!simulate) {
-				state.itemQuantity += result;
-				state.itemArticle = article;
+			if (!simulate && result != 0) {
+				state.itemQuantity[lane] += result;
+				state.itemArticle[lane] = article;
+				onChanged();
 			}
 
 			return result;
@@ -372,19 +574,21 @@ public class TransportBuffer implements TransactionDelegate, TransactionParticip
 	private final ArticleFunction supplier = new ArtFunc() {
 		@Override
 		protected long applyFluid(Article article, long numerator, long divisor, boolean simulate) {
-			if (numerator == 0 || state.fluidAmount.isZero() || state.fluidArticle.isNothing() || !state.fluidArticle.equals(article)) {
+			if (numerator == 0 || state.fluidUnits == 0 || state.fluidArticle.isNothing() || !state.fluidArticle.equals(article)) {
 				return 0;
 			}
 
-			final long avail = state.fluidAmount.toLong(divisor);
+			final long avail = FluidUnits.toNumerator(state.fluidUnits, divisor);
 			final long result = UtbHelper.throttleUtb1LocalFluid(Math.min(numerator, avail), divisor);
 
-			if (!simulate) {
-				state.fluidAmount.subtract(result, divisor);
+			if (!simulate && result != 0) {
+				state.fluidUnits -= FluidUnits.of(result, divisor);
 
-				if (state.fluidAmount.isZero()) {
+				if (state.fluidUnits == 0) {
 					state.fluidArticle = Article.NOTHING;
 				}
+
+				onChanged();
 			}
 
 			return result;
@@ -392,18 +596,17 @@ public class TransportBuffer implements TransactionDelegate, TransactionParticip
 
 		@Override
 		protected long applyItem(Article article, long qty, boolean simulate) {
-			if (qty == 0 || state.itemQuantity == 0 || state.itemArticle.isNothing() || !state.itemArticle.equals(article)) {
+			final int lane = qty == 0 || article.isNothing() ? -1 : laneOf(article);
+
+			if (lane == -1) {
 				return 0;
 			}
 
-			final long result = UtbHelper.throttleUtb1LocalItem(Math.min(qty, state.itemQuantity));
+			final long result = bus.throttleLocalItem(Math.min(qty, state.itemQuantity[lane]));
 
-			if (!simulate) {
-				state.itemQuantity -= result;
-
-				if (state.itemQuantity == 0) {
-					state.itemArticle = Article.NOTHING;
-				}
+			if (!simulate && result != 0) {
+				removeItems(lane, result);
+				onChanged();
 			}
 
 			return result;
@@ -38,6 +38,11 @@ public class Bus2StorageTickHandler implements TransportTickHandler {
 
 		final TransportCarrierContext carrierContext = context.carrierContext();
 
+		// nothing of our type anywhere on the network
+		if (!carrierContext.isNetworkSupplying()) {
+			return true;
+		}
+
 		if (!carrierContext.isReady()) {
 			return true;
 		}
@@ -47,6 +52,7 @@ public class Bus2StorageTickHandler implements TransportTickHandler {
 
 		// if not accepting anything then exit
 		if (targetArticle == null) {
+			carrierContext.postDemand(Article.NOTHING, 0);
 			return true;
 		}
 
@@ -54,11 +60,19 @@ public class Bus2StorageTickHandler implements TransportTickHandler {
 
 		if (targetArticle.isNothing()) {
 			didStoragePropose = false;
+			carrierContext.postDemand(Article.NOTHING, 0);
+
+			// nothing new on the network since the last empty pull
+			if (!carrierContext.shouldPull()) {
+				return true;
+			}
+
 			// local storage has no preference, so find something random on network
 			targetArticle = carrierContext.anyAvailableArticle();
 
-			// if still nothing, then try again next time
+			// if still nothing, then wait for new supply
 			if (targetArticle.isNothing()) {
+				carrierContext.awaitSupply();
 				return true;
 			}
 
@@ -69,6 +83,15 @@ public class Bus2StorageTickHandler implements TransportTickHandler {
 			}
 		} else {
 			didStoragePropose = true;
+
+			// post what we want so that pushing suppliers deliver it and supply events wake us
+			carrierContext.postDemand(targetArticle, storageContext.capacityFor(targetArticle, storageContext.unitsFor(targetArticle)));
+
+			if (!carrierContext.shouldPull()) {
+				// rotate through what storage wants without searching the network
+				storageContext.advanceAcceptProposal(carrierContext.articleType);
+				return true;
+			}
 		}
 
 		final ArticleFunction supplier = carrierContext.sourceFor(targetArticle);
@@ -78,17 +101,19 @@ public class Bus2StorageTickHandler implements TransportTickHandler {
 				storageContext.advanceAcceptProposal(carrierContext.articleType);
 			}
 
+			carrierContext.awaitSupply(targetArticle);
 			return true;
 		}
 
 		final ArticleFunction bufferConsumer = context.buffer().consumer();
 		final long units = storageContext.unitsFor(targetArticle);
+
+		// local limits are cheap to check and bound the request
 		long howMany = storageContext.capacityFor(targetArticle, units);
 		howMany = bufferConsumer.apply(targetArticle, howMany, units, true);
-		howMany = carrierContext.throttle(targetArticle, howMany, units, true);
-		howMany = supplier.apply(targetArticle, howMany, units, true);
 
 		if (howMany > 0) {
+			// bandwidth, network supplier and buffer all roll back, so apply each once and abandon on shortfall
 			try (Transaction tx = Transaction.open()) {
 				tx.enlist(supplier);
 				tx.enlist(bufferConsumer);
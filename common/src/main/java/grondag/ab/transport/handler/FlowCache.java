@@ -0,0 +1,109 @@
+/*
+ * This file is part of Ability and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.ab.transport.handler;
+
+import grondag.fluidity.api.article.Article;
+import grondag.fluidity.wip.base.transport.AssignedNumbersAuthority;
+
+/**
+ * Node addresses by article, most recently used first.  Small enough that a linear
+ * search beats hashing.  Entries are not invalidated when nodes go away - callers
+ * check the node on lookup and {@link #remove(Article)} entries that fail.
+ */
+class FlowCache {
+	static final int SIZE = 4;
+
+	private final Article[] articles = new Article[SIZE];
+	private final long[] addresses = new long[SIZE];
+	private int size = 0;
+	private long hits = 0;
+	private long misses = 0;
+
+	/** Address last stored for the article, or {@link AssignedNumbersAuthority#INVALID_ADDRESS}. */
+	long get(Article article) {
+		final int i = indexOf(article);
+
+		if (i < 0) {
+			++misses;
+			return AssignedNumbersAuthority.INVALID_ADDRESS;
+		}
+
+		++hits;
+		promote(i);
+		return addresses[0];
+	}
+
+	/** Stores the address as most recent, evicting the least recent entry if full. */
+	void put(Article article, long address) {
+		int i = indexOf(article);
+
+		if (i < 0) {
+			i = size < SIZE ? size++ : SIZE - 1;
+			articles[i] = article;
+		}
+
+		addresses[i] = address;
+		promote(i);
+	}
+
+	void remove(Article article) {
+		final int i = indexOf(article);
+
+		if (i >= 0) {
+			--size;
+			System.arraycopy(articles, i + 1, articles, i, size - i);
+			System.arraycopy(addresses, i + 1, addresses, i, size - i);
+			articles[size] = null;
+		}
+	}
+
+	long hits() {
+		return hits;
+	}
+
+	long misses() {
+		return misses;
+	}
+
+	private int indexOf(Article article) {
+		final Article[] articles = this.articles;
+		final int size = this.size;
+
+		for (int i = 0; i < size; ++i) {
+			if (articles[i].equals(article)) {
+				return i;
+			}
+		}
+
+		return -1;
+	}
+
+	private void promote(int i) {
+		if (i > 0) {
+			final Article article = articles[i];
+			final long address = addresses[i];
+			System.arraycopy(articles, 0, articles, 1, i);
+			System.arraycopy(addresses, 0, addresses, 1, i);
+			articles[0] = article;
+			addresses[0] = address;
+		}
+	}
+}
@@ -38,31 +38,46 @@ public class Storage2BusTickHandler implements TransportTickHandler {
 
 		final TransportCarrierContext carrierContext = context.carrierContext();
 
+		// higher tier buffers hold several stacks and may fill from more than one slot per tick
+		final int batches = carrierContext.articleType.isItem() ? context.buffer().bus().bufferStacks() : 1;
+
+		for (int i = 0; i < batches; ++i) {
+			if (!transferOnce(context, storageContext, carrierContext)) {
+				break;
+			}
+		}
+
+		return true;
+	}
+
+	/** Moves one batch from storage into the buffer.  Returns false if nothing moved. */
+	private boolean transferOnce(TransportContext context, TransportStorageContext storageContext, TransportCarrierContext carrierContext) {
 		// see if we have something to send
 		final Article targetArticle = storageContext.proposeSupply(carrierContext.articleType);
 
 		// storage did not have anything available, try again next time
 		if (targetArticle.isNothing()) {
-			return true;
+			return false;
 		}
 
 		final long units = storageContext.unitsFor(targetArticle);
 		long howMany = storageContext.available(targetArticle, units);
 
 		if (howMany > 0) {
-			// find out how many buffer can hold
 			final ArticleFunction bufferConsumer = context.buffer().consumer();
-			howMany = bufferConsumer.apply(targetArticle, howMany, units, true);
 
-			if (howMany > 0) {
-				try (Transaction tx = Transaction.open()) {
-					tx.enlist(bufferConsumer);
-					final long bufferResult = bufferConsumer.apply(targetArticle, howMany, units, false);
+			// buffer rolls back but storage does not, so fill the buffer first
+			// and take from storage only what the buffer accepted
+			try (Transaction tx = Transaction.open()) {
+				tx.enlist(bufferConsumer);
+				final long bufferResult = bufferConsumer.apply(targetArticle, howMany, units, false);
 
-					final long storageResult = storageContext.supply(targetArticle, howMany, units);
+				if (bufferResult > 0) {
+					final long storageResult = storageContext.supply(targetArticle, bufferResult, units);
 
 					if (storageResult == bufferResult) {
 						tx.commit();
+						return true;
 					} else {
 						assert storageResult == 0;
 					}
@@ -70,6 +85,6 @@ public class Storage2BusTickHandler implements TransportTickHandler {
 			}
 		}
 
-		return true;
+		return false;
 	}
 }
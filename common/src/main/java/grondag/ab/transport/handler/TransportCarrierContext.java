@@ -24,7 +24,11 @@ import io.netty.util.internal.ThreadLocalRandom;
 import org.jetbrains.annotations.Nullable;
 
 import grondag.ab.AbilityConfig;
+import grondag.ab.transport.UtbCarrierSession;
 import grondag.ab.transport.UtbCostFunction;
+import grondag.ab.transport.UtbRoutingIndex;
+import grondag.ab.transport.UtbSubCarrier;
+import grondag.ab.varia.WorldTaskManager;
 import grondag.fluidity.api.article.Article;
 import grondag.fluidity.api.article.ArticleType;
 import grondag.fluidity.api.storage.ArticleFunction;
@@ -34,12 +38,22 @@ import grondag.fluidity.wip.base.transport.AssignedNumbersAuthority;
 import grondag.fluidity.wip.base.transport.SubCarrier;
 
 public abstract class TransportCarrierContext {
-	private long consumerAddress = AssignedNumbersAuthority.INVALID_ADDRESS;
-	private long supplierAddress = AssignedNumbersAuthority.INVALID_ADDRESS;
+	/** Recent consumers and suppliers by article so movers that alternate between articles keep their routes. */
+	private final FlowCache consumerFlows = new FlowCache();
+	private final FlowCache supplierFlows = new FlowCache();
 	private Article lastAnyAvailable = Article.NOTHING;
+	/** Last article chosen from the network census, so the next choice moves on. */
+	private Article censusCursor = Article.NOTHING;
+	private Article postedDemand = Article.NOTHING;
+	/** True after a pull found nothing, until the session's supply events move past {@link #awaitedSupplyEvents}. */
+	private boolean isAwaitingSupply = false;
+	private int awaitedSupplyEvents;
+	/** Node behind the last result of {@link #consumerFor(Article)}, so a refusal can be attributed. */
+	private CarrierNode lastConsumerNode = CarrierNode.INVALID;
 
 	// set initial value so peer nodes don't all go at once
-	protected int cooldownTicks = ThreadLocalRandom.current().nextInt(AbilityConfig.utb1ImporterCooldownTicks);
+	// server tick rather than a countdown so movers ticked less often than every tick keep the same cooldown
+	protected int readyTick = WorldTaskManager.tickCounter() + ThreadLocalRandom.current().nextInt(AbilityConfig.utb1ImporterCooldownTicks);
 	protected final ArticleType<?> articleType;
 
 	public abstract CarrierSession session();
@@ -50,40 +64,122 @@ public abstract class TransportCarrierContext {
 		this.articleType = articleType;
 	}
 
-	private CarrierNode lastConsumer() {
-		return consumerAddress == AssignedNumbersAuthority.INVALID_ADDRESS ? CarrierNode.INVALID : session().carrier().nodeByAddress(consumerAddress);
+	private CarrierNode lastConsumer(Article article) {
+		return nodeAt(consumerFlows.get(article));
 	}
 
-	private CarrierNode lastSupplier() {
-		return supplierAddress == AssignedNumbersAuthority.INVALID_ADDRESS ? CarrierNode.INVALID : session().carrier().nodeByAddress(supplierAddress);
+	private CarrierNode lastSupplier(Article article) {
+		return nodeAt(supplierFlows.get(article));
+	}
+
+	private CarrierNode nodeAt(long address) {
+		return address == AssignedNumbersAuthority.INVALID_ADDRESS ? CarrierNode.INVALID : session().carrier().nodeByAddress(address);
+	}
+
+	/** Flow cache lookups that found an entry, for diagnostics. */
+	public long flowCacheHits() {
+		return consumerFlows.hits() + supplierFlows.hits();
+	}
+
+	/** Flow cache lookups that found no entry, for diagnostics. */
+	public long flowCacheMisses() {
+		return consumerFlows.misses() + supplierFlows.misses();
+	}
+
+	/**
+	 * Rejects nodes backed by the same storage as this context so articles do not cycle
+	 * out of a store and straight back in.  Cached nodes are re-checked because
+	 * multiblock storage can merge after an address is saved.
+	 */
+	private CarrierNode unlessLoop(CarrierNode node) {
+		return node.isValid() && UtbRoutingIndex.isLoop(session(), node) ? CarrierNode.INVALID : node;
+	}
+
+	/** Rejects consumers that recently refused the article. */
+	private static CarrierNode unlessSaturated(CarrierNode node, Article article) {
+		return node instanceof final UtbCarrierSession session && session.isSaturated(article) ? CarrierNode.INVALID : node;
+	}
+
+	private @Nullable UtbRoutingIndex routingIndex() {
+		final SubCarrier<UtbCostFunction> carrier = carrier();
+		return carrier instanceof UtbSubCarrier ? ((UtbSubCarrier) carrier).routingIndex() : null;
+	}
+
+	/**
+	 * Uses the network routing index when available and only falls
+	 * back to a broadcast search if the index cannot be trusted to be complete.
+	 */
+	private CarrierNode findSupplier(Article article) {
+		final UtbRoutingIndex index = routingIndex();
+
+		if (index != null) {
+			final CarrierNode node = index.supplierOf(article, session());
+
+			if (node.isValid() || index.isAuthoritative()) {
+				return node;
+			}
+		}
+
+		return session().supplierOf(article);
+	}
+
+	private CarrierNode findConsumer(Article article) {
+		final UtbRoutingIndex index = routingIndex();
+
+		if (index != null) {
+			final CarrierNode node = index.consumerOf(article, session());
+
+			if (node.isValid() || index.isAuthoritative()) {
+				return node;
+			}
+		}
+
+		final CarrierNode node = session().consumerOf(article);
+		return node.isValid() && unlessLoop(node) == CarrierNode.INVALID ? probeConsumer(article) : node;
+	}
+
+	/** Peers tried when the broadcast search only finds a loop, which it would keep finding. */
+	private static final int LOOP_PROBES = 4;
+
+	private CarrierNode probeConsumer(Article article) {
+		for (int i = 0; i < LOOP_PROBES; ++i) {
+			final CarrierNode node = unlessSaturated(unlessLoop(session().randomPeer()), article);
+
+			if (node.isValid() && node != session() && node.getComponent(ArticleFunction.CONSUMER_COMPONENT).get().canApply(article)) {
+				return node;
+			}
+		}
+
+		return CarrierNode.INVALID;
 	}
 
 	public @Nullable ArticleFunction sourceFor(Article article) {
 		ArticleFunction result = null;
-		CarrierNode node = lastSupplier();
+		CarrierNode node = unlessLoop(lastSupplier(article));
 
 		if (node.isValid()) {
 			result = node.getComponent(ArticleFunction.SUPPLIER_COMPONENT).get();
 
 			if (!result.canApply(article)) {
 				result = null;
-				supplierAddress = AssignedNumbersAuthority.INVALID_ADDRESS;
 			}
 		}
 
 		if (result == null) {
-			node = session().supplierOf(article);
+			node = unlessLoop(findSupplier(article));
 
 			if (node.isValid()) {
 				result = node.getComponent(ArticleFunction.SUPPLIER_COMPONENT).get();
 
 				if (result.canApply(article)) {
 					// save for next tick
-					supplierAddress = node.nodeAddress();
+					supplierFlows.put(article, node.nodeAddress());
 				} else {
-					supplierAddress = AssignedNumbersAuthority.INVALID_ADDRESS;
+					supplierFlows.remove(article);
 					result = null;
 				}
+			} else {
+				supplierFlows.remove(article);
 			}
 		}
 
@@ -95,11 +191,11 @@ public abstract class TransportCarrierContext {
 	}
 
 	public void resetCooldown() {
-		cooldownTicks = AbilityConfig.utb1ImporterCooldownTicks;
+		readyTick = WorldTaskManager.tickCounter() + AbilityConfig.utb1ImporterCooldownTicks;
 	}
 
 	public boolean isReady() {
-		return --cooldownTicks <= 0;
+		return WorldTaskManager.tickCounter() >= readyTick;
 	}
 
 	public @Nullable ArticleFunction consumerFor(Article article) {
@@ -107,37 +203,70 @@ public abstract class TransportCarrierContext {
 			return null;
 		}
 
-		CarrierNode node = lastConsumer();
+		final UtbRoutingIndex index = routingIndex();
+
+		// nothing on the network can take it right now
+		if (index != null && index.isBackpressured(article)) {
+			return null;
+		}
+
+		// skip the cached consumer when someone is waiting on this article specifically
+		CarrierNode node = index != null && index.hasDemand(article) ? CarrierNode.INVALID : unlessSaturated(unlessLoop(lastConsumer(article)), article);
 		ArticleFunction result = null;
 
+		// or when a higher priority consumer could take it instead
+		if (node.isValid() && index != null && index.isOutranked(article, node)) {
+			node = CarrierNode.INVALID;
+		}
+
 		if (node.isValid()) {
 			result = node.getComponent(ArticleFunction.CONSUMER_COMPONENT).get();
 
 			if (!result.canApply(article)) {
-				consumerAddress = AssignedNumbersAuthority.INVALID_ADDRESS;
 				result = null;
 			}
 		}
 
 		if (result == null) {
-			node = session().consumerOf(article);
+			node = unlessLoop(findConsumer(article));
 
 			if (node.isValid()) {
 				result = node.getComponent(ArticleFunction.CONSUMER_COMPONENT).get();
 
 				if (result.canApply(article)) {
 					// save for next tick
-					consumerAddress = node.nodeAddress();
+					consumerFlows.put(article, node.nodeAddress());
 				} else {
-					consumerAddress = AssignedNumbersAuthority.INVALID_ADDRESS;
+					consumerFlows.remove(article);
 					result = null;
 				}
+			} else {
+				consumerFlows.remove(article);
+
+				// a miss caused only by self or loop filtering says nothing about other suppliers
+				if (index != null && !index.hasOpenConsumer(article)) {
+					index.applyBackpressure(article);
+				}
 			}
 		}
 
+		lastConsumerNode = result == null ? CarrierNode.INVALID : node;
 		return result;
 	}
 
+	/**
+	 * Call when the consumer last returned by {@link #consumerFor(Article)} accepted none
+	 * of an offer.  It is skipped for that article until it frees capacity.
+	 */
+	public void reportRefused(Article article) {
+		if (lastConsumerNode instanceof final UtbCarrierSession session) {
+			session.setSaturated(article);
+		}
+
+		consumerFlows.remove(article);
+		lastConsumerNode = CarrierNode.INVALID;
+	}
+
 	/**
 	 * Will return last non-nothing result so long as it remains available and until {@link #resetAvailableArticle()} is called.
 	 * @return
@@ -155,6 +284,16 @@ public abstract class TransportCarrierContext {
 		}
 
 		if (result.isNothing()) {
+			final UtbRoutingIndex index = routingIndex();
+
+			if (index != null && index.isAuthoritative()) {
+				// census is complete - walk it in order instead of probing peers
+				result = index.census().next(articleType, censusCursor);
+				censusCursor = result;
+				lastAnyAvailable = result;
+				return result;
+			}
+
 			final CarrierNode node = session().randomPeer();
 
 			if (node.isValid()) {
@@ -162,7 +301,7 @@ public abstract class TransportCarrierContext {
 
 				if (!result.isNothing()) {
 					lastAnyAvailable = result;
-					supplierAddress = node.nodeAddress();
+					supplierFlows.put(result, node.nodeAddress());
 				}
 			}
 		}
@@ -170,6 +309,85 @@ public abstract class TransportCarrierContext {
 		return result;
 	}
 
+	/**
+	 * False only when the network census is complete and shows nothing of this
+	 * context's article type, in which case there is no point trying to pull.
+	 */
+	public boolean isNetworkSupplying() {
+		final UtbRoutingIndex index = routingIndex();
+		return index == null || !index.isAuthoritative() || index.census().hasAny(articleType);
+	}
+
+	/**
+	 * Replaces any standing demand from this context with one for the given article.
+	 * Pass {@link Article#NOTHING} or zero capacity to withdraw.  A changed demand counts as a supply
+	 * event if the network census shows the new article, so it is pulled at least once.
+	 */
+	public void postDemand(Article article, long capacity) {
+		if (!(session() instanceof final UtbCarrierSession session)) {
+			return;
+		}
+
+		if (capacity <= 0) {
+			article = Article.NOTHING;
+		}
+
+		if (!article.equals(postedDemand)) {
+			// other contexts on the session may hold the same demands
+			if (!postedDemand.isNothing()) {
+				session.releaseDemand(postedDemand);
+			}
+
+			postedDemand = article;
+
+			if (!article.isNothing()) {
+				session.holdDemand(article, capacity);
+				final UtbRoutingIndex index = routingIndex();
+
+				if (index == null || !index.isAuthoritative() || index.census().quantityOf(article) > 0) {
+					isAwaitingSupply = false;
+				}
+			}
+		} else if (!article.isNothing()) {
+			session.setDemand(article, capacity);
+		}
+	}
+
+	/**
+	 * False if this context can wait for a supply event instead of pulling.
+	 * Always true unless the network index is complete, because opaque suppliers do not signal.
+	 */
+	public boolean shouldPull() {
+		final UtbRoutingIndex index = routingIndex();
+
+		if (index == null || !index.isAuthoritative() || !(session() instanceof final UtbCarrierSession session)) {
+			return true;
+		}
+
+		return !isAwaitingSupply || session.supplyEvents(articleType) != awaitedSupplyEvents;
+	}
+
+	/** Call when a pull found nothing to take.  Pulling resumes on the next supply event. */
+	public void awaitSupply() {
+		if (session() instanceof final UtbCarrierSession session) {
+			isAwaitingSupply = true;
+			awaitedSupplyEvents = session.supplyEvents(articleType);
+		}
+	}
+
+	/**
+	 * Call when a pull for a specific article found no usable supplier.  Waits only if the
+	 * network census shows none of it.  Supply that exists but was filtered out, as a loop or
+	 * by the supplier, raises no new events, so waiting on it would never end.
+	 */
+	public void awaitSupply(Article article) {
+		final UtbRoutingIndex index = routingIndex();
+
+		if (index == null || !index.isAuthoritative() || index.census().quantityOf(article) <= 0) {
+			awaitSupply();
+		}
+	}
+
 	public void resetAvailableArticle() {
 		lastAnyAvailable = Article.NOTHING;
 	}
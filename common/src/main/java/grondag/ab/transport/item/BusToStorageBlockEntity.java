@@ -24,6 +24,7 @@ import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.block.entity.BlockEntityType;
 import net.minecraft.world.level.block.state.BlockState;
 
+import grondag.ab.transport.UtbCarrierSession;
 import grondag.ab.transport.handler.Bus2StorageTickHandler;
 import grondag.ab.transport.handler.TransportTickHandler;
 import grondag.fluidity.api.storage.ArticleFunction;
@@ -31,6 +32,8 @@ import grondag.fluidity.api.storage.ArticleFunction;
 public class BusToStorageBlockEntity extends ItemMoverBlockEntity {
 	public BusToStorageBlockEntity(BlockEntityType<BusToStorageBlockEntity> type, BlockPos pos, BlockState state) {
 		super(type, pos, state);
+		// buffer will take anything so long as it is empty or matches
+		((UtbCarrierSession) internalSession).setAcceptsAny(true);
 	}
 
 	@Override
@@ -48,9 +51,25 @@ public class BusToStorageBlockEntity extends ItemMoverBlockEntity {
 		return transportBuffer.consumer();
 	}
 
+	@Override
+	protected boolean canSleep() {
+		// a stuck buffer means the target is full - an empty one may be waiting on storage elsewhere on the network
+		return !transportBuffer.isEmpty() && super.canSleep();
+	}
+
 	@Override
 	protected void tickBuffer() {
-		transportBuffer.flushItemToStorage(itemStorage);
-		transportBuffer.flushFluidToStorage(fluidStorage);
+		final int bufferVersion = transportBuffer.version();
+
+		for (int i = 0; i < targetCount; ++i) {
+			final MoverTarget target = targets[i];
+			transportBuffer.flushItemToStorage(target.itemStorage);
+			transportBuffer.flushFluidToStorage(target.fluidStorage);
+		}
+
+		if (transportBuffer.version() != bufferVersion) {
+			// buffer has room again so suppliers may offer to us
+			((UtbCarrierSession) internalSession).clearSaturation();
+		}
 	}
 }
@@ -0,0 +1,70 @@
+/*
+ * This file is part of Ability and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.ab.transport.item;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.Level;
+
+/**
+ * Tracks sleeping movers by target position so that changes to vanilla containers,
+ * which do not notify neighbors, can wake them.
+ */
+public abstract class DormantMovers {
+	private DormantMovers() { }
+
+	private static final Long2ObjectOpenHashMap<ObjectArrayList<ItemMoverBlockEntity>> WATCHED = new Long2ObjectOpenHashMap<>();
+
+	static void watch(ItemMoverBlockEntity mover, BlockPos targetPos) {
+		WATCHED.computeIfAbsent(targetPos.asLong(), k -> new ObjectArrayList<>()).add(mover);
+	}
+
+	static void unwatch(ItemMoverBlockEntity mover, BlockPos targetPos) {
+		final long key = targetPos.asLong();
+		final ObjectArrayList<ItemMoverBlockEntity> list = WATCHED.get(key);
+
+		if (list != null && list.remove(mover) && list.isEmpty()) {
+			WATCHED.remove(key);
+		}
+	}
+
+	/** Called after any block entity at the given position is marked changed. */
+	public static void onBlockEntityChanged(Level level, BlockPos pos) {
+		if (WATCHED.isEmpty() || level.isClientSide) {
+			return;
+		}
+
+		final ObjectArrayList<ItemMoverBlockEntity> list = WATCHED.get(pos.asLong());
+
+		if (list != null) {
+			// reverse order because waking removes from list
+			for (int i = list.size() - 1; i >= 0; --i) {
+				final ItemMoverBlockEntity mover = list.get(i);
+
+				if (mover.getLevel() == level) {
+					mover.wake();
+				}
+			}
+		}
+	}
+}
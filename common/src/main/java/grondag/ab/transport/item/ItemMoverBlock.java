@@ -43,8 +43,13 @@ import net.minecraft.world.level.block.state.StateDefinition.Builder;
 import net.minecraft.world.level.block.state.properties.BlockStateProperties;
 import net.minecraft.world.phys.BlockHitResult;
 
+import grondag.ab.Ability;
+import grondag.ab.storage.TickWheel;
 import grondag.ab.storage.TickableBlockEntity;
+import grondag.ab.transport.ConsumerPriority;
 import grondag.ab.transport.PipeBlock;
+import grondag.ab.transport.PipeMultiBlock;
+import grondag.ab.transport.UniversalTransportBus;
 import grondag.ab.transport.buffer.TransportBuffer;
 import grondag.xm.api.block.XmProperties;
 import grondag.xm.api.connect.world.BlockTest;
@@ -57,8 +62,21 @@ public class ItemMoverBlock extends PipeBlock {
 		return fromState.getValue(XmProperties.FACE) == ctx.toFace() || canConnect(ctx);
 	};
 
+	/** True if the mover serves every adjacent block that is not a pipe, not only the block it faces. */
+	public final boolean isMultiTarget;
+
 	public ItemMoverBlock(Block.Properties settings, BlockEntitySupplier<? extends BlockEntity> beFactory, boolean hasGlow) {
 		super(settings, beFactory, hasGlow);
+		isMultiTarget = false;
+	}
+
+	public ItemMoverBlock(Block.Properties settings, BlockEntitySupplier<? extends BlockEntity> beFactory, boolean hasGlow, UniversalTransportBus bus) {
+		this(settings, beFactory, hasGlow, bus, false);
+	}
+
+	public ItemMoverBlock(Block.Properties settings, BlockEntitySupplier<? extends BlockEntity> beFactory, boolean hasGlow, UniversalTransportBus bus, boolean isMultiTarget) {
+		super(settings, beFactory, hasGlow, bus);
+		this.isMultiTarget = isMultiTarget;
 	}
 
 	@Override
@@ -76,8 +94,12 @@ public class ItemMoverBlock extends PipeBlock {
 			world.setBlock(blockPos, blockState.setValue(BlockStateProperties.POWERED, hasPower), 3);
 		}
 
-		if (!world.isClientSide && BlockPos.offset(blockPos.asLong(), blockState.getValue(XmProperties.FACE)) == blockPos2.asLong()) {
-			((ItemMoverBlockEntity) world.getBlockEntity(blockPos)).resetTickHandler = true;
+		if (!world.isClientSide && world.getBlockEntity(blockPos) instanceof final ItemMoverBlockEntity mover) {
+			mover.wake();
+
+			if (mover.isTarget(blockPos2)) {
+				mover.resetTickHandler = true;
+			}
 		}
 	}
 
@@ -93,11 +115,14 @@ public class ItemMoverBlock extends PipeBlock {
 		if (!world.isClientSide) {
 			final BlockEntity be = world.getBlockEntity(pos);
 
-			if (be instanceof ItemMoverBlockEntity) {
+			if (be instanceof final ItemMoverBlockEntity mover && Ability.modifyKey.isPressed(player)) {
+				ConsumerPriority.showPriority(player, mover.cyclePriority());
+			} else if (be instanceof ItemMoverBlockEntity) {
 				final TransportBuffer buffer = ((ItemMoverBlockEntity) be).transportBuffer;
-				final ItemStack stack = buffer.flushItemToWorld();
+				ItemStack stack;
 
-				if (!stack.isEmpty()) {
+				// higher tier buffers may hold more than one stack
+				while (!(stack = buffer.flushItemToWorld()).isEmpty()) {
 					if (player.addItem(stack)) {
 						player.level.playSound((Player) null, player.getX(), player.getY(), player.getZ(), SoundEvents.ITEM_PICKUP, SoundSource.PLAYERS, 0.2F, ((player.getRandom().nextFloat() - player.getRandom().nextFloat()) * 0.7F + 1.0F) * 2.0F);
 					} else {
@@ -122,9 +147,9 @@ public class ItemMoverBlock extends PipeBlock {
 
 			if (be instanceof ItemMoverBlockEntity) {
 				final TransportBuffer buffer = ((ItemMoverBlockEntity) be).transportBuffer;
-				final ItemStack stack = buffer.flushItemToWorld();
+				ItemStack stack;
 
-				if (!stack.isEmpty()) {
+				while (!(stack = buffer.flushItemToWorld()).isEmpty()) {
 					Containers.dropItemStack(world, pos.getX(), pos.getY(), pos.getZ(), stack);
 				}
 			}
@@ -137,6 +162,7 @@ public class ItemMoverBlock extends PipeBlock {
 
 	@Override
 	public <T extends BlockEntity> BlockEntityTicker<T> getTicker(Level world, BlockState state, BlockEntityType<T> type) {
-		return world.isClientSide ? null : TickableBlockEntity::tick;
+		// batched movers are ticked by their network and wheel movers by the tick wheel instead
+		return world.isClientSide || PipeMultiBlock.isBatching() || TickWheel.isEnabled() ? null : TickableBlockEntity::tick;
 	}
 }
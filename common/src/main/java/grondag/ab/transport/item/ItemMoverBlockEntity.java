@@ -20,23 +20,33 @@
 
 package grondag.ab.transport.item;
 
+import org.jetbrains.annotations.Nullable;
+
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.world.Container;
 import net.minecraft.world.WorldlyContainer;
+import net.minecraft.world.entity.Entity;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.BucketPickup;
 import net.minecraft.world.level.block.LiquidBlock;
 import net.minecraft.world.level.block.LiquidBlockContainer;
+import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.entity.BlockEntityType;
 import net.minecraft.world.level.block.entity.HopperBlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.properties.BlockStateProperties;
 
+import grondag.ab.AbilityConfig;
+import grondag.ab.storage.TickWheel;
 import grondag.ab.storage.TickableBlockEntity;
+import grondag.ab.transport.ConsumerPriority;
+import grondag.ab.transport.PipeBlock;
 import grondag.ab.transport.PipeBlockEntity;
+import grondag.ab.transport.PipeMultiBlock;
+import grondag.ab.transport.UtbCarrierSession;
 import grondag.ab.transport.UtbCostFunction;
 import grondag.ab.transport.buffer.TransportBuffer;
 import grondag.ab.transport.handler.TransportCarrierContext;
@@ -48,85 +58,272 @@ import grondag.ab.transport.util.MissingStorageContext;
 import grondag.ab.transport.util.SidedInventoryStorageContext;
 import grondag.ab.transport.util.TransportStorageContext;
 import grondag.ab.transport.util.WorldStorageContext;
+import grondag.ab.varia.WorldTaskManager;
+import grondag.fluidity.api.article.Article;
 import grondag.fluidity.api.article.ArticleType;
 import grondag.fluidity.api.device.BlockComponentContext;
+import grondag.fluidity.api.fraction.Fraction;
 import grondag.fluidity.api.storage.ArticleFunction;
+import grondag.fluidity.api.storage.StorageListener;
 import grondag.fluidity.api.storage.Store;
 import grondag.fluidity.wip.api.transport.CarrierProvider;
 import grondag.fluidity.wip.api.transport.CarrierSession;
 import grondag.fluidity.wip.base.transport.SubCarrier;
 import grondag.xm.api.block.XmProperties;
 
-public abstract class ItemMoverBlockEntity extends PipeBlockEntity implements TickableBlockEntity {
+public abstract class ItemMoverBlockEntity extends PipeBlockEntity implements TickableBlockEntity, ConsumerPriority {
 	public static final String TAG_BUFFER = "buffer";
-	protected BlockPos targetPos = null;
-	Direction targetFace = null;
+	public static final String TAG_PRIORITY = "priority";
 	CarrierSession internalSession;
 	protected boolean resetTickHandler = true;
+	protected int consumerPriority = ConsumerPriority.NORMAL;
+
+	/** Server tick of the last progress, so idle time is counted the same however often we tick. */
+	protected int idleSince = WorldTaskManager.tickCounter();
+	protected boolean isDormant = false;
+
+	/** Targets by direction from this mover, created on first use so each keeps its route state. */
+	private final MoverTarget[] targetsBySide = new MoverTarget[6];
+	/** Targets served this tick.  The first is always the target on {@link XmProperties#FACE}. */
+	protected final MoverTarget[] targets = new MoverTarget[6];
+	protected int targetCount = 0;
+	/** Storage behind each served target, parallel to {@link #targets}, for loop suppression. */
+	private final Object[] targetOrigins = new Object[6];
+
+	/** Ticks between lookups of entity-based containers, which can move without notice. */
+	private static final int ENTITY_CONTAINER_TICKS = 20;
+
+	protected final TransportBuffer transportBuffer;
+
+	/**
+	 * One adjacent block served by this mover, with its own storage contexts and tick
+	 * handlers.  All targets share the mover's buffer and carrier session.
+	 */
+	protected class MoverTarget {
+		protected final BlockPos pos;
+		/** Face of the target that touches this mover. */
+		protected final Direction face;
+
+		/*
+		 * Target resolved by select() so that steady-state ticks do no world lookups.
+		 * Neighbor updates re-run select().  Removal of the target block entity, including
+		 * by chunk unload, and the expiry of entity containers force a fresh lookup.
+		 */
+		protected BlockEntity blockEntity = null;
+		protected Store store = null;
+		protected Container container = null;
+		protected int containerExpiry = 0;
+		/** Store or container behind this target, for loop suppression. */
+		protected Object origin = null;
+
+		protected BlockPos watchedPos = null;
+		protected Store watchedStore = null;
+
+		/** May be used for fluid and/or item or not used at all. */
+		protected final TransportStorageContext fluidityStorage = new FluidityStorageContext() {
+			@Override
+			protected Store store() {
+				return targetStore();
+			}
+		};
 
-	/** May be used for fluid and/or item or not used at all. */
-	protected final TransportStorageContext fluidityStorage = new FluidityStorageContext() {
-		@Override
-		protected Store store() {
-			return Store.STORAGE_COMPONENT.getAccess(level, targetPos).get();
+		protected final TransportStorageContext worldStorage = new WorldStorageContext() {
+			@Override
+			protected Level world() {
+				return getLevel();
+			}
+
+			@Override
+			protected BlockPos pos() {
+				// context has its own pos field
+				return MoverTarget.this.pos;
+			}
+		};
+
+		protected TransportTickHandler itemTickHandler = TransportTickHandler.NOOP;
+		protected TransportStorageContext itemStorage = MissingStorageContext.INSTANCE;
+		protected final TransportCarrierContext itemCarrierContext = new CarrierContext(ArticleType.ITEM);
+
+		protected final TransportContext itemContext = new TransportContext() {
+			@Override
+			public TransportBuffer buffer() {
+				return transportBuffer;
+			}
+
+			@Override
+			public TransportStorageContext storageContext() {
+				return itemStorage;
+			}
+
+			@Override
+			public TransportCarrierContext carrierContext() {
+				return itemCarrierContext;
+			}
+		};
+
+		protected TransportTickHandler fluidTickHandler = TransportTickHandler.NOOP;
+		protected final TransportCarrierContext fluidCarrierContext = new CarrierContext(ArticleType.FLUID);
+		protected TransportStorageContext fluidStorage = MissingStorageContext.INSTANCE;
+
+		protected final TransportContext fluidContext = new TransportContext() {
+			@Override
+			public TransportBuffer buffer() {
+				return transportBuffer;
+			}
+
+			@Override
+			public TransportStorageContext storageContext() {
+				return fluidStorage;
+			}
+
+			@Override
+			public TransportCarrierContext carrierContext() {
+				return fluidCarrierContext;
+			}
+		};
+
+		protected MoverTarget(Direction side) {
+			pos = getBlockPos().relative(side);
+			face = side.getOpposite();
 		}
-	};
 
-	protected final TransportStorageContext worldStorage = new WorldStorageContext() {
-		@Override
-		protected Level world() {
-			return getLevel();
+		protected Store targetStore() {
+			Store result = store;
+
+			if (result == null || !result.isValid() || (blockEntity != null && blockEntity.isRemoved())) {
+				blockEntity = level.getBlockEntity(pos);
+				result = Store.STORAGE_COMPONENT.getAccess(level, pos).get();
+				store = result;
+			}
+
+			return result;
 		}
 
-		@Override
-		protected BlockPos pos() {
-			return targetPos;
+		protected @Nullable Container targetContainer() {
+			final Container result = container;
+
+			final boolean isCurrent = result instanceof final BlockEntity be ? !be.isRemoved()
+					: result instanceof final Entity entity ? !entity.isRemoved() && WorldTaskManager.tickCounter() < containerExpiry
+					: result != null;
+
+			return isCurrent ? result : resolveContainer();
+		}
+
+		private @Nullable Container resolveContainer() {
+			final Container result = HopperBlockEntity.getContainerAt(level, pos);
+			container = result;
+			containerExpiry = WorldTaskManager.tickCounter() + ENTITY_CONTAINER_TICKS;
+			return result;
 		}
-	};
 
-	protected final TransportBuffer transportBuffer = new TransportBuffer();
+		protected void clear() {
+			blockEntity = null;
+			store = null;
+			container = null;
+		}
 
-	protected TransportTickHandler itemTickHandler = TransportTickHandler.NOOP;
-	protected TransportStorageContext itemStorage = MissingStorageContext.INSTANCE;
-	protected final TransportCarrierContext itemCarrierContext = new CarrierContext(ArticleType.ITEM);
+		/**
+		 * Chooses storage contexts and tick handlers for whatever is now at the target.
+		 * World blocks are only served when {@code allowWorld} is true.
+		 * @return true if the target can be served
+		 */
+		protected boolean select(boolean allowWorld) {
+			clear();
+			final Store storage = targetStore();
+
+			if (storage != Store.STORAGE_COMPONENT.absent()) {
+				origin = storage;
+				fluidStorage = storage.allowsType(ArticleType.FLUID).mayBeTrue ? fluidityStorage : MissingStorageContext.INSTANCE;
+				itemStorage = storage.allowsType(ArticleType.ITEM).mayBeTrue ? fluidityStorage : MissingStorageContext.INSTANCE;
+			} else {
+				store = null;
+				final Container inv = resolveContainer();
 
-	protected final TransportContext itemContext = new TransportContext() {
-		@Override
-		public TransportBuffer buffer() {
-			return transportBuffer;
+				if (inv != null) {
+					origin = inv;
+					fluidStorage = MissingStorageContext.INSTANCE;
+
+					if (inv instanceof WorldlyContainer) {
+						itemStorage = new SidedInventoryStorageContext(face) {
+							@Override
+							protected WorldlyContainer inventory() {
+								return targetContainer() instanceof final WorldlyContainer sided ? sided : null;
+							}
+						};
+					} else {
+						itemStorage = new InventoryStorageContext<>() {
+							@Override
+							protected Container inventory() {
+								return targetContainer();
+							}
+						};
+					}
+				} else {
+					origin = null;
+					final BlockState state = getLevel().getBlockState(pos);
+					final Block block = state.getBlock();
+					itemStorage = !allowWorld || state.isCollisionShapeFullBlock(level, pos) ? MissingStorageContext.INSTANCE : worldStorage;
+
+					if (allowWorld && (state.isAir() || (state.getBlock() instanceof LiquidBlock && state.getFluidState().isSource())
+							|| block instanceof BucketPickup || block instanceof LiquidBlockContainer)) {
+						fluidStorage = worldStorage;
+					} else {
+						fluidStorage = MissingStorageContext.INSTANCE;
+					}
+				}
+			}
+
+			itemTickHandler = itemStorage == MissingStorageContext.INSTANCE ? TransportTickHandler.NOOP : itemTickHandler();
+			fluidTickHandler = fluidStorage == MissingStorageContext.INSTANCE ? TransportTickHandler.NOOP : fluidTickHandler();
+			return itemTickHandler != TransportTickHandler.NOOP || fluidTickHandler != TransportTickHandler.NOOP;
 		}
 
-		@Override
-		public TransportStorageContext storageContext() {
-			return itemStorage;
+		/** Runs both handlers.  Returns false if the target should be selected again. */
+		protected boolean tick() {
+			final boolean itemResult = itemTickHandler.tick(itemContext);
+			return fluidTickHandler.tick(fluidContext) && itemResult;
 		}
 
-		@Override
-		public TransportCarrierContext carrierContext() {
-			return itemCarrierContext;
+		/** Withdraws standing demands so targets no longer served do not hold them on the shared session. */
+		protected void withdrawDemand() {
+			itemCarrierContext.postDemand(Article.NOTHING, 0);
+			fluidCarrierContext.postDemand(Article.NOTHING, 0);
 		}
-	};
 
-	protected TransportTickHandler fluidTickHandler = TransportTickHandler.NOOP;
-	protected final TransportCarrierContext fluidCarrierContext = new CarrierContext(ArticleType.FLUID);
-	protected TransportStorageContext fluidStorage = MissingStorageContext.INSTANCE;
+		protected boolean usesWorld() {
+			return itemStorage == worldStorage || fluidStorage == worldStorage;
+		}
 
-	protected final TransportContext fluidContext = new TransportContext() {
-		@Override
-		public TransportBuffer buffer() {
-			return transportBuffer;
+		/** True if the target can change without a block entity change or neighbor update to wake us. */
+		protected boolean isUnwatchable() {
+			return usesWorld() || origin instanceof Entity;
 		}
 
-		@Override
-		public TransportStorageContext storageContext() {
-			return fluidStorage;
+		protected void watch() {
+			watchedPos = pos;
+			DormantMovers.watch(ItemMoverBlockEntity.this, pos);
+
+			final Store watched = store == null ? Store.STORAGE_COMPONENT.getAccess(level, pos).get() : store;
+
+			if (watched != Store.STORAGE_COMPONENT.absent()) {
+				watchedStore = watched;
+				watched.eventStream().startListening(wakeListener, false);
+			}
 		}
 
-		@Override
-		public TransportCarrierContext carrierContext() {
-			return fluidCarrierContext;
+		protected void unwatch() {
+			if (watchedPos != null) {
+				DormantMovers.unwatch(ItemMoverBlockEntity.this, watchedPos);
+				watchedPos = null;
+			}
+
+			if (watchedStore != null) {
+				final Store watched = watchedStore;
+				watchedStore = null;
+				watched.eventStream().stopListening(wakeListener, false);
+			}
 		}
-	};
+	}
 
 	private class CarrierContext extends TransportCarrierContext {
 		protected CarrierContext(ArticleType<?> articleType) {
@@ -146,7 +343,36 @@ public abstract class ItemMoverBlockEntity extends PipeBlockEntity implements Ti
 
 	public ItemMoverBlockEntity(BlockEntityType<? extends PipeBlockEntity> type, BlockPos pos, BlockState state) {
 		super(type, pos, state);
+		transportBuffer = new TransportBuffer(bus);
 		internalSession = carrier.attach(ct -> ct.getAccess(this));
+		// buffer can be changed by other devices on the network
+		transportBuffer.onChange(this::wake);
+	}
+
+	private MoverTarget target(Direction side) {
+		MoverTarget result = targetsBySide[side.ordinal()];
+
+		if (result == null) {
+			result = new MoverTarget(side);
+			targetsBySide[side.ordinal()] = result;
+		}
+
+		return result;
+	}
+
+	/** The target on {@link XmProperties#FACE}. Handles buffer traffic that is not specific to one target. */
+	protected MoverTarget primaryTarget() {
+		return target(getBlockState().getValue(XmProperties.FACE));
+	}
+
+	/** True if this mover serves every adjacent block that is not a pipe instead of only the block it faces. */
+	public boolean isMultiTarget() {
+		return getBlockState().getBlock() instanceof final ItemMoverBlock block && block.isMultiTarget;
+	}
+
+	/** True if a change at the given position may change what this mover serves. */
+	public boolean isTarget(BlockPos pos) {
+		return isMultiTarget() ? getBlockPos().distManhattan(pos) == 1 : getBlockPos().relative(getBlockState().getValue(XmProperties.FACE)).equals(pos);
 	}
 
 	// does not provide carrier to the attached block
@@ -163,51 +389,63 @@ public abstract class ItemMoverBlockEntity extends PipeBlockEntity implements Ti
 		resetTickHandler = false;
 
 		final Direction face = getBlockState().getValue(XmProperties.FACE);
-		targetPos = getBlockPos().relative(face);
-		targetFace = face.getOpposite();
+		final MoverTarget primary = target(face);
+		primary.select(true);
+		targets[0] = primary;
+		targetCount = 1;
+
+		if (isMultiTarget()) {
+			// other faces are served only if they hold storage and don't join the network
+			for (final Direction side : Direction.values()) {
+				if (side != face && !(level.getBlockState(getBlockPos().relative(side)).getBlock() instanceof PipeBlock)) {
+					final MoverTarget target = target(side);
+
+					if (target.select(false)) {
+						targets[targetCount++] = target;
+					}
+				}
+			}
+		}
 
-		final Store storage = Store.STORAGE_COMPONENT.getAccess(level, targetPos).get();
+		for (final MoverTarget target : targetsBySide) {
+			if (target != null && !isServed(target)) {
+				target.withdrawDemand();
+			}
+		}
 
-		if (storage != Store.STORAGE_COMPONENT.absent()) {
-			fluidStorage = storage.allowsType(ArticleType.FLUID).mayBeTrue ? fluidityStorage : MissingStorageContext.INSTANCE;
-			itemStorage = storage.allowsType(ArticleType.ITEM).mayBeTrue ? fluidityStorage : MissingStorageContext.INSTANCE;
-		} else {
-			final Container inv = HopperBlockEntity.getContainerAt(level, targetPos);
-
-			if (inv != null) {
-				fluidStorage = MissingStorageContext.INSTANCE;
-
-				if (inv instanceof WorldlyContainer) {
-					itemStorage = new SidedInventoryStorageContext(targetFace) {
-						@Override
-						protected WorldlyContainer inventory() {
-							return (WorldlyContainer) HopperBlockEntity.getContainerAt(level, targetPos);
-						}
-					};
-				} else {
-					itemStorage = new InventoryStorageContext<>() {
-						@Override
-						protected Container inventory() {
-							return HopperBlockEntity.getContainerAt(level, targetPos);
-						}
-					};
-				}
-			} else {
-				final BlockState state = getLevel().getBlockState(targetPos);
-				final Block block = state.getBlock();
-				itemStorage = state.isCollisionShapeFullBlock(level, targetPos) ? MissingStorageContext.INSTANCE : worldStorage;
+		for (int i = 0; i < targetCount; ++i) {
+			targetOrigins[i] = targets[i].origin;
+		}
 
-				if (state.isAir() || (state.getBlock() instanceof LiquidBlock && state.getFluidState().isSource())
-						|| block instanceof BucketPickup || block instanceof LiquidBlockContainer) {
-					fluidStorage = worldStorage;
-				} else {
-					fluidStorage = MissingStorageContext.INSTANCE;
-				}
+		// routes back into any served storage are loops, not only the primary
+		final UtbCarrierSession session = (UtbCarrierSession) internalSession;
+		session.setStorageOrigins(targetOrigins, targetCount);
+		// fair-share bandwidth is split per served target, not per mover
+		session.setWeight(targetCount);
+		session.refreshPriority();
+	}
+
+	private boolean isServed(MoverTarget target) {
+		for (int i = 0; i < targetCount; ++i) {
+			if (targets[i] == target) {
+				return true;
 			}
 		}
 
-		itemTickHandler = itemStorage == MissingStorageContext.INSTANCE ? TransportTickHandler.NOOP : itemTickHandler();
-		fluidTickHandler = fluidStorage == MissingStorageContext.INSTANCE ? TransportTickHandler.NOOP : fluidTickHandler();
+		return false;
+	}
+
+	@Override
+	public int consumerPriority() {
+		return consumerPriority;
+	}
+
+	/** Advances to the next consumer priority and returns it. */
+	public int cyclePriority() {
+		consumerPriority = ConsumerPriority.next(consumerPriority);
+		((UtbCarrierSession) internalSession).refreshPriority();
+		setChanged();
+		return consumerPriority;
 	}
 
 	@Override
@@ -217,8 +455,14 @@ public abstract class ItemMoverBlockEntity extends PipeBlockEntity implements Ti
 
 	@Override
 	public final void tick() {
+		if (isDormant) {
+			return;
+		}
+
 		// TODO: allow inversion or disable of redstone control
 		if (getBlockState().getValue(BlockStateProperties.POWERED)) {
+			// redstone change is a neighbor update and will wake us
+			sleep();
 			return;
 		}
 
@@ -226,19 +470,215 @@ public abstract class ItemMoverBlockEntity extends PipeBlockEntity implements Ti
 			selectHandler();
 		}
 
-		if (!itemTickHandler.tick(itemContext)) {
-			resetTickHandler = true;
-		}
+		final int bufferVersion = transportBuffer.version();
 
-		if (!fluidTickHandler.tick(fluidContext)) {
-			resetTickHandler = true;
+		for (int i = 0; i < targetCount; ++i) {
+			if (!targets[i].tick()) {
+				resetTickHandler = true;
+			}
 		}
 
 		tickBuffer();
+		publishRoutes();
+
+		if (transportBuffer.version() == bufferVersion && canSleep()) {
+			final int sleepTicks = AbilityConfig.moverSleepTicks;
+
+			if (sleepTicks > 0 && WorldTaskManager.tickCounter() - idleSince >= sleepTicks) {
+				sleep();
+			}
+		} else {
+			idleSince = WorldTaskManager.tickCounter();
+		}
+	}
+
+	/**
+	 * Dormant movers leave the wheel.  Buffered articles move every tick.  Otherwise
+	 * progress is gated by the carrier cooldown, so there is no reason to look sooner.
+	 * World targets keep their own per-tick counters and are ticked every tick.
+	 */
+	@Override
+	public int tickPeriod() {
+		// wake() puts us back on the wheel
+		if (isDormant) {
+			return 0;
+		}
+
+		if (!transportBuffer.isEmpty()) {
+			return 1;
+		}
+
+		for (int i = 0; i < targetCount; ++i) {
+			if (targets[i].usesWorld()) {
+				return 1;
+			}
+		}
+
+		return AbilityConfig.utb1ImporterCooldownTicks;
+	}
+
+	/**
+	 * True if the current lack of progress can only be resolved by a change to the
+	 * target or to this mover, both of which will wake it.  Movers that depend on
+	 * other devices on the network to make progress should not sleep.
+	 */
+	protected boolean canSleep() {
+		// world targets and entity containers can change without any notification
+		for (int i = 0; i < targetCount; ++i) {
+			if (targets[i].isUnwatchable()) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	public boolean isDormant() {
+		return isDormant;
+	}
+
+	/**
+	 * Stops ticking until {@link #wake()} is called by a neighbor update,
+	 * a change to the target container or store, or a change to our buffer.
+	 */
+	protected void sleep() {
+		if (isDormant || level == null) {
+			return;
+		}
+
+		isDormant = true;
+		idleSince = WorldTaskManager.tickCounter();
+
+		for (int i = 0; i < targetCount; ++i) {
+			targets[i].watch();
+		}
+	}
+
+	public void wake() {
+		// also called on buffer changes, so a mover waiting out its period flushes promptly
+		if (usesTickWheel()) {
+			TickWheel.wake(this);
+		}
+
+		if (!isDormant) {
+			return;
+		}
+
+		isDormant = false;
+		idleSince = WorldTaskManager.tickCounter();
+
+		// target set may have changed since we slept
+		for (final MoverTarget target : targetsBySide) {
+			if (target != null) {
+				target.unwatch();
+			}
+		}
+	}
+
+	@Override
+	public void setRemoved() {
+		// only unregister: waking would re-file this mover, possibly on the wheel of an unloaded level
+		transportBuffer.onChange(null);
+		TickWheel.unschedule(this);
+		isDormant = false;
+
+		for (final MoverTarget target : targetsBySide) {
+			if (target != null) {
+				target.unwatch();
+				target.clear();
+			}
+		}
+
+		super.setRemoved();
 	}
 
+	@Override
+	public void setLevel(Level world) {
+		super.setLevel(world);
+		scheduleTicks();
+	}
+
+	@Override
+	public void clearRemoved() {
+		super.clearRemoved();
+		transportBuffer.onChange(this::wake);
+		scheduleTicks();
+	}
+
+	private void scheduleTicks() {
+		if (usesTickWheel()) {
+			TickWheel.schedule(this);
+		}
+	}
+
+	private boolean usesTickWheel() {
+		// batched movers are ticked by their network
+		return TickWheel.isEnabled() && !PipeMultiBlock.isBatching();
+	}
+
+	private final StorageListener wakeListener = new StorageListener() {
+		@Override
+		public void disconnect(Store store, boolean didNotify, boolean isValid) {
+			wake();
+		}
+
+		@Override
+		public void onAccept(Store store, int handle, Article item, long delta, long newCount) {
+			wake();
+		}
+
+		@Override
+		public void onSupply(Store store, int handle, Article item, long delta, long newCount) {
+			wake();
+		}
+
+		@Override
+		public void onCapacityChange(Store store, long capacityDelta) {
+			wake();
+		}
+
+		@Override
+		public void onAccept(Store store, int handle, Article item, Fraction delta, Fraction newVolume) {
+			wake();
+		}
+
+		@Override
+		public void onSupply(Store store, int handle, Article item, Fraction delta, Fraction newVolume) {
+			wake();
+		}
+
+		@Override
+		public void onCapacityChange(Store store, Fraction capacityDelta) {
+			wake();
+		}
+	};
+
 	protected abstract void tickBuffer();
 
+	/** Override to keep the network routing index current after buffer changes. */
+	protected void publishRoutes() {
+		// NOOP
+	}
+
+	/**
+	 * Replaces a previously published supply route with the current one if they differ
+	 * and keeps the published quantity current.
+	 * @return the article now published, for the caller to retain
+	 */
+	protected final Article publishSupply(Article published, Article current, long quantity) {
+		final UtbCarrierSession session = (UtbCarrierSession) internalSession;
+
+		if (!published.isNothing() && !current.equals(published)) {
+			session.setSupply(published, 0);
+		}
+
+		if (!current.isNothing()) {
+			session.setSupply(current, quantity);
+		}
+
+		return current;
+	}
+
 	@Override
 	public void saveAdditional(CompoundTag tag) {
 		super.saveAdditional(tag);
@@ -246,6 +686,10 @@ public abstract class ItemMoverBlockEntity extends PipeBlockEntity implements Ti
 		if (!transportBuffer.state().shouldSave()) {
 			tag.put(TAG_BUFFER, transportBuffer.state().toTag());
 		}
+
+		if (consumerPriority != ConsumerPriority.NORMAL) {
+			tag.putInt(TAG_PRIORITY, consumerPriority);
+		}
 	}
 
 	@Override
@@ -257,6 +701,8 @@ public abstract class ItemMoverBlockEntity extends PipeBlockEntity implements Ti
 		} else if (!this.level.isClientSide) {
 			transportBuffer.state().reset();
 		}
+
+		consumerPriority = tag.getInt(TAG_PRIORITY);
 	}
 
 	public ArticleFunction getSupplier() {
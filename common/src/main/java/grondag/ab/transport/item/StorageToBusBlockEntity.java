@@ -20,17 +20,28 @@
 
 package grondag.ab.transport.item;
 
+import java.util.Arrays;
+
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.block.entity.BlockEntityType;
 import net.minecraft.world.level.block.state.BlockState;
 
+import grondag.ab.transport.UtbCarrierSession;
+import grondag.ab.transport.buffer.TransportBuffer;
 import grondag.ab.transport.handler.Storage2BusTickHandler;
 import grondag.ab.transport.handler.TransportTickHandler;
+import grondag.fluidity.api.article.Article;
+import grondag.fluidity.api.article.ArticleType;
 import grondag.fluidity.api.storage.ArticleFunction;
 
 public class StorageToBusBlockEntity extends ItemMoverBlockEntity {
+	private final Article[] publishedItems = new Article[TransportBuffer.MAX_LANES];
+	private Article publishedFluid = Article.NOTHING;
+
 	public StorageToBusBlockEntity(BlockEntityType<StorageToBusBlockEntity> type, BlockPos pos, BlockState state) {
 		super(type, pos, state);
+		((UtbCarrierSession) internalSession).enableRouting();
+		Arrays.fill(publishedItems, Article.NOTHING);
 	}
 
 	@Override
@@ -50,7 +61,41 @@ public class StorageToBusBlockEntity extends ItemMoverBlockEntity {
 
 	@Override
 	protected void tickBuffer() {
-		transportBuffer.flushItemToCarrier(itemCarrierContext);
-		transportBuffer.flushFluidToCarrier(fluidCarrierContext);
+		final MoverTarget target = primaryTarget();
+		transportBuffer.flushItemToCarrier(target.itemCarrierContext);
+		transportBuffer.flushFluidToCarrier(target.fluidCarrierContext);
+	}
+
+	@Override
+	protected boolean canSleep() {
+		// an empty buffer means the source has nothing for us - a full one is waiting on the network
+		return transportBuffer.isEmpty() && super.canSleep();
+	}
+
+	@Override
+	protected void publishRoutes() {
+		final ArticleFunction supplier = transportBuffer.supplier();
+		final UtbCarrierSession session = (UtbCarrierSession) internalSession;
+
+		// withdraw stale lanes before publishing new ones so an article that moved lanes stays published
+		for (int i = 0; i < TransportBuffer.MAX_LANES; ++i) {
+			final Article published = publishedItems[i];
+
+			if (!published.isNothing() && !published.equals(transportBuffer.itemArticle(i))) {
+				session.setSupply(published, 0);
+				publishedItems[i] = Article.NOTHING;
+			}
+		}
+
+		for (int i = 0; i < TransportBuffer.MAX_LANES; ++i) {
+			final Article current = transportBuffer.itemArticle(i);
+
+			if (!current.isNothing()) {
+				session.setSupply(current, transportBuffer.itemQuantity(i));
+				publishedItems[i] = current;
+			}
+		}
+
+		publishedFluid = publishSupply(publishedFluid, supplier.suggestArticle(ArticleType.FLUID), transportBuffer.fluidUnits());
 	}
 }
@@ -0,0 +1,234 @@
+/*
+ * This file is part of Ability and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.ab.transport.util;
+
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import org.jetbrains.annotations.Nullable;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.tags.FluidTags;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.material.Fluid;
+import net.minecraft.world.level.material.FluidState;
+
+import grondag.ab.varia.WorldTaskManager;
+
+/**
+ * Incremental flood fill over a connected body of one fluid, run in small steps by
+ * {@link WorldTaskManager}.  Sources found are drained farthest first so the body
+ * stays connected to the pump until the end.  Water bodies that would refill a drained
+ * block under vanilla rules are reported as infinite and served without draining.
+ */
+class AreaPump {
+	/** Positions visited per task step. */
+	private static final int SCAN_BATCH = 8;
+	private static final int MAX_VISITED = 4096;
+	/** Infinite sources are re-scanned after this long in case the pool was changed. */
+	private static final int INFINITE_TICKS = 200;
+
+	private final LongArrayFIFOQueue frontier = new LongArrayFIFOQueue();
+	private final LongOpenHashSet visited = new LongOpenHashSet();
+	/** Sources in scan order, so popped from the end. */
+	private final LongArrayList sources = new LongArrayList();
+	private final BlockPos.MutableBlockPos searchPos = new BlockPos.MutableBlockPos();
+	private final BlockPos.MutableBlockPos probePos = new BlockPos.MutableBlockPos();
+
+	private Level level = null;
+	private Fluid fluid = null;
+	private int originX, originY, originZ;
+	private int range;
+	private int generation = 0;
+	private boolean isScanning = false;
+	private boolean isInfinite = false;
+	private int infiniteExpiry = 0;
+
+	/** Discards prior results and starts a scan from the given position. */
+	void start(Level level, BlockPos origin, Fluid fluid, int range) {
+		reset();
+		this.level = level;
+		this.fluid = fluid;
+		this.range = range;
+		originX = origin.getX();
+		originY = origin.getY();
+		originZ = origin.getZ();
+
+		final long start = origin.asLong();
+		visited.add(start);
+		frontier.enqueue(start);
+		isScanning = true;
+
+		final int gen = generation;
+		WorldTaskManager.enqueue(level, WorldTaskManager.Priority.BULK, () -> scan(gen));
+	}
+
+	void reset() {
+		++generation;
+		frontier.clear();
+		visited.clear();
+		sources.clear();
+		level = null;
+		fluid = null;
+		isScanning = false;
+		isInfinite = false;
+	}
+
+	/** True if results, or a scan in progress, are for the given fluid. */
+	boolean isFor(Fluid fluid) {
+		return this.fluid != null && this.fluid.isSame(fluid);
+	}
+
+	boolean isScanning() {
+		return isScanning;
+	}
+
+	boolean isInfinite() {
+		if (isInfinite && WorldTaskManager.tickCounter() >= infiniteExpiry) {
+			isInfinite = false;
+		}
+
+		return isInfinite;
+	}
+
+	/**
+	 * Farthest remaining position that is still a source of the pumped fluid, or null if none remain.
+	 * The result is kept until it is no longer a source, so repeated calls before it is drained agree.
+	 */
+	@Nullable BlockPos nextSource() {
+		while (!sources.isEmpty()) {
+			final int last = sources.size() - 1;
+			searchPos.set(sources.getLong(last));
+
+			if (level.isLoaded(searchPos)) {
+				final FluidState fluidState = level.getFluidState(searchPos);
+
+				if (fluidState.isSource() && fluid.isSame(fluidState.getType())) {
+					return searchPos.immutable();
+				}
+			}
+
+			sources.removeLong(last);
+		}
+
+		return null;
+	}
+
+	private boolean scan(int gen) {
+		if (gen != generation || !isScanning) {
+			return false;
+		}
+
+		for (int i = 0; i < SCAN_BATCH && !frontier.isEmpty(); ++i) {
+			visit(frontier.dequeueLong());
+
+			if (isInfinite) {
+				// nothing else to learn and nothing will be drained
+				frontier.clear();
+				sources.clear();
+			}
+		}
+
+		if (frontier.isEmpty()) {
+			isScanning = false;
+			return false;
+		}
+
+		return true;
+	}
+
+	private void visit(long packedPos) {
+		final BlockPos.MutableBlockPos pos = searchPos.set(packedPos);
+
+		if (!level.isLoaded(pos)) {
+			return;
+		}
+
+		final FluidState fluidState = level.getFluidState(pos);
+
+		if (!fluid.isSame(fluidState.getType())) {
+			return;
+		}
+
+		if (fluidState.isSource()) {
+			sources.add(packedPos);
+
+			if (refills(pos)) {
+				isInfinite = true;
+				infiniteExpiry = WorldTaskManager.tickCounter() + INFINITE_TICKS;
+				return;
+			}
+		}
+
+		// flowing blocks of the same fluid are traversed so partly drained bodies stay connected
+		for (final Direction face : Direction.values()) {
+			final long next = BlockPos.offset(packedPos, face);
+
+			if (isInRange(next) && visited.size() < MAX_VISITED && visited.add(next)) {
+				frontier.enqueue(next);
+			}
+		}
+	}
+
+	private boolean isInRange(long packedPos) {
+		return Math.abs(BlockPos.getX(packedPos) - originX) <= range
+				&& Math.abs(BlockPos.getY(packedPos) - originY) <= range
+				&& Math.abs(BlockPos.getZ(packedPos) - originZ) <= range;
+	}
+
+	/**
+	 * True if a drained source at this position would become a source again: water
+	 * with at least two horizontal source neighbors over a solid block or another source.
+	 */
+	private boolean refills(BlockPos pos) {
+		if (!fluid.is(FluidTags.WATER)) {
+			return false;
+		}
+
+		int count = 0;
+
+		for (final Direction face : Direction.Plane.HORIZONTAL) {
+			probePos.setWithOffset(pos, face);
+
+			if (level.isLoaded(probePos)) {
+				final FluidState neighbor = level.getFluidState(probePos);
+
+				if (neighbor.isSource() && fluid.isSame(neighbor.getType())) {
+					++count;
+				}
+			}
+		}
+
+		if (count < 2) {
+			return false;
+		}
+
+		probePos.setWithOffset(pos, Direction.DOWN);
+
+		if (!level.isLoaded(probePos)) {
+			return false;
+		}
+
+		final FluidState below = level.getFluidState(probePos);
+		return (below.isSource() && fluid.isSame(below.getType())) || level.getBlockState(probePos).getMaterial().isSolid();
+	}
+}
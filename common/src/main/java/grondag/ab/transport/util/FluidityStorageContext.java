@@ -20,6 +20,7 @@
 
 package grondag.ab.transport.util;
 
+import grondag.ab.transport.FluidUnits;
 import grondag.fluidity.api.article.Article;
 import grondag.fluidity.api.article.ArticleType;
 import grondag.fluidity.api.article.StoredArticleView;
@@ -52,15 +53,23 @@ public abstract class FluidityStorageContext implements TransportStorageContext
 		}
 
 		if (lastSupply.isNothing() || lastSupply.type() != type || !store.getSupplier().canApply(lastSupply)) {
-			// can't reuse last result so iterate content
+			// can't reuse last result so iterate content, skipping empty handles
+			// so that stores with sparse handle space still yield an article each call
 			final int limit = store.handleCount();
+			lastSupply = Article.NOTHING;
 
-			if (nextSupplyHandle >= limit) {
-				nextSupplyHandle = 0;
-			}
+			for (int i = 0; i < limit; ++i) {
+				if (nextSupplyHandle >= limit) {
+					nextSupplyHandle = 0;
+				}
+
+				final StoredArticleView v = store.view(nextSupplyHandle++);
 
-			final StoredArticleView v = store.view(nextSupplyHandle++);
-			lastSupply = v.article().type() == type && !v.isEmpty() ? v.article() : Article.NOTHING;
+				if (!v.isEmpty() && v.article().type() == type) {
+					lastSupply = v.article();
+					break;
+				}
+			}
 		}
 
 		return lastSupply;
@@ -79,7 +88,7 @@ public abstract class FluidityStorageContext implements TransportStorageContext
 
 	@Override
 	public long unitsFor(Article article) {
-		return article.type().isBulk() ? 1000 : 1;
+		return article.type().isBulk() ? FluidUnits.PER_BUCKET : 1;
 	}
 
 	@Override
@@ -20,6 +20,8 @@
 
 package grondag.ab.transport.util;
 
+import org.jetbrains.annotations.Nullable;
+
 import net.minecraft.world.Container;
 import net.minecraft.world.item.ItemStack;
 
@@ -43,10 +45,18 @@ public abstract class InventoryHelper {
 	}
 
 	public static boolean canPlaceInSlot(Article article, Container inv, int slot) {
+		return canPlaceInSlot(article, null, inv, slot);
+	}
+
+	/**
+	 * As {@link #canPlaceInSlot(Article, Container, int)} but uses the given single-item
+	 * stack of the article, if non-null, instead of allocating one for an empty slot.
+	 */
+	public static boolean canPlaceInSlot(Article article, @Nullable ItemStack probe, Container inv, int slot) {
 		final ItemStack targetStack = inv.getItem(slot);
 
 		if (targetStack.isEmpty()) {
-			return (inv.canPlaceItem(slot, article.toStack()));
+			return (inv.canPlaceItem(slot, probe == null ? article.toStack() : probe));
 		}
 
 		if (article.matches(targetStack) && targetStack.getCount() < targetStack.getMaxStackSize() && inv.canPlaceItem(slot, targetStack)) {
@@ -20,9 +20,15 @@
 
 package grondag.ab.transport.util;
 
+import java.util.Arrays;
+import java.util.BitSet;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+
 import net.minecraft.world.Container;
 import net.minecraft.world.item.ItemStack;
 
+import grondag.ab.varia.WorldTaskManager;
 import grondag.fluidity.api.article.Article;
 import grondag.fluidity.api.article.ArticleType;
 
@@ -34,12 +40,33 @@ public abstract class InventoryStorageContext<T extends Container> implements Tr
 	protected Article lastAcceptArticle = Article.NOTHING;
 
 	protected int proposalSlotIndex = 0;
-	protected Article lastProposalArticle = Article.NOTHING;
 
 	protected T inventory;
 
 	protected int[] slots = new int[0];
 
+	/*
+	 * Slot index, by position in slots[], kept current for changes made through this context.
+	 * Block entity containers carry a change stamp and are rescanned only when marked changed
+	 * by someone else.  Other containers have no change signal, so a few slots are re-read
+	 * each tick instead.  Either way lookups still confirm against the live stack.
+	 */
+	protected final BitSet freeSlots = new BitSet();
+	protected final BitSet partialSlots = new BitSet();
+	protected final BitSet fullSlots = new BitSet();
+	protected final Object2ObjectOpenHashMap<Article, BitSet> articleSlots = new Object2ObjectOpenHashMap<>();
+	private Article[] indexedArticles = new Article[0];
+	private int[] indexedSlots = null;
+	private int indexTick = -1;
+	private int indexStamp = 0;
+	private int sweepPosition = 0;
+
+	/** Slots re-read per tick for containers without a change stamp. */
+	private static final int SWEEP_SLOTS = 8;
+
+	private Article probeArticle = Article.NOTHING;
+	private ItemStack probeStack = ItemStack.EMPTY;
+
 	protected abstract T inventory();
 
 	@Override
@@ -61,6 +88,125 @@ public abstract class InventoryStorageContext<T extends Container> implements Tr
 		}
 	}
 
+	protected void refreshIndex() {
+		final int[] slots = this.slots;
+		final boolean sameSlots = slots == indexedSlots || Arrays.equals(slots, indexedSlots);
+		final int tick = WorldTaskManager.tickCounter();
+
+		if (sameSlots && tick == indexTick) {
+			return;
+		}
+
+		final int limit = slots.length;
+
+		if (!sameSlots) {
+			indexedArticles = new Article[limit];
+			freeSlots.clear();
+			partialSlots.clear();
+			fullSlots.clear();
+			articleSlots.clear();
+		}
+
+		indexedSlots = slots;
+		indexTick = tick;
+
+		if (inventory instanceof final ChangeStamped stamped) {
+			final int stamp = stamped.ab_changeStamp();
+
+			if (!sameSlots || stamp != indexStamp) {
+				indexStamp = stamp;
+
+				for (int i = 0; i < limit; ++i) {
+					indexSlot(i);
+				}
+			}
+		} else if (!sameSlots) {
+			for (int i = 0; i < limit; ++i) {
+				indexSlot(i);
+			}
+		} else {
+			final int count = Math.min(SWEEP_SLOTS, limit);
+
+			for (int i = 0; i < count; ++i) {
+				if (sweepPosition >= limit) {
+					sweepPosition = 0;
+				}
+
+				indexSlot(sweepPosition++);
+			}
+		}
+	}
+
+	/**
+	 * Marks the container changed after this context changed the given position and re-reads it.
+	 * The index is otherwise current, so our own change does not force a rescan.
+	 */
+	protected void onSlotChanged(int position) {
+		refreshIndex();
+		inventory.setChanged();
+		indexSlot(position);
+
+		if (inventory instanceof final ChangeStamped stamped) {
+			indexStamp = stamped.ab_changeStamp();
+		}
+	}
+
+	/** Re-reads one position.  Call after any change to that slot made by this context. */
+	protected void indexSlot(int position) {
+		final ItemStack stack = inventory.getItem(slots[position]);
+		final Article oldArticle = indexedArticles[position];
+		final Article article;
+
+		if (stack.isEmpty()) {
+			article = null;
+		} else if (oldArticle != null && oldArticle.matches(stack)) {
+			// compare rather than trust the instance - NBT can be changed in place
+			article = oldArticle;
+		} else {
+			article = Article.of(stack);
+		}
+
+		if (article == null ? oldArticle != null : !article.equals(oldArticle)) {
+			if (oldArticle != null) {
+				final BitSet oldSlots = articleSlots.get(oldArticle);
+
+				if (oldSlots != null) {
+					oldSlots.clear(position);
+
+					if (oldSlots.isEmpty()) {
+						articleSlots.remove(oldArticle);
+					}
+				}
+			}
+
+			if (article != null) {
+				articleSlots.computeIfAbsent(article, a -> new BitSet()).set(position);
+			}
+
+			indexedArticles[position] = article;
+		}
+
+		final boolean isEmpty = stack.isEmpty();
+		final boolean isFull = !isEmpty && stack.getCount() >= stack.getMaxStackSize();
+		freeSlots.set(position, isEmpty);
+		partialSlots.set(position, !isEmpty && !isFull);
+		fullSlots.set(position, isFull);
+	}
+
+	/** Next position at or after the given one that is not full, or -1. */
+	private int nextOpen(int from) {
+		final int free = freeSlots.nextSetBit(from);
+		final int partial = partialSlots.nextSetBit(from);
+		return free < 0 ? partial : partial < 0 ? free : Math.min(free, partial);
+	}
+
+	/** Next position at or after the given one that holds something, or -1. */
+	private int nextOccupied(int from) {
+		final int partial = partialSlots.nextSetBit(from);
+		final int full = fullSlots.nextSetBit(from);
+		return partial < 0 ? full : full < 0 ? partial : Math.min(partial, full);
+	}
+
 	@Override
 	public boolean canAccept(Article article) {
 		return positionToAccept(article);
@@ -80,12 +226,27 @@ public abstract class InventoryStorageContext<T extends Container> implements Tr
 		final int[] slots = this.slots;
 		final int limit = slots.length;
 
-		// restart position search from beginning if different article
+		// restart position search if different article
 		if (acceptSlotIndex < limit && article.equals(lastAcceptArticle) && canPlaceInSlot(article, slots[acceptSlotIndex])) {
 			return true;
 		}
 
-		for (int i = 0; i < limit; ++i) {
+		refreshIndex();
+
+		// top off stacks of the same article before starting new ones
+		final BitSet sameArticle = articleSlots.get(article);
+
+		if (sameArticle != null) {
+			for (int i = sameArticle.nextSetBit(0); i >= 0; i = sameArticle.nextSetBit(i + 1)) {
+				if (partialSlots.get(i) && canPlaceInSlot(article, slots[i])) {
+					lastAcceptArticle = article;
+					acceptSlotIndex = i;
+					return true;
+				}
+			}
+		}
+
+		for (int i = freeSlots.nextSetBit(0); i >= 0; i = freeSlots.nextSetBit(i + 1)) {
 			if (canPlaceInSlot(article, slots[i])) {
 				lastAcceptArticle = article;
 				acceptSlotIndex = i;
@@ -98,7 +259,20 @@ public abstract class InventoryStorageContext<T extends Container> implements Tr
 	}
 
 	protected boolean canPlaceInSlot(Article article, int slot) {
-		return InventoryHelper.canPlaceInSlot(article, inventory, slot);
+		return InventoryHelper.canPlaceInSlot(article, probeStack(article), inventory, slot);
+	}
+
+	/**
+	 * Single-item stack of the article for placement checks, reused until the article
+	 * changes so that probing slots does not allocate.  Must not be modified or retained.
+	 */
+	protected ItemStack probeStack(Article article) {
+		if (!article.equals(probeArticle)) {
+			probeArticle = article;
+			probeStack = article.toStack();
+		}
+
+		return probeStack;
 	}
 
 	protected boolean canPlaceInSlot(ItemStack stack, int slot) {
@@ -135,37 +309,32 @@ public abstract class InventoryStorageContext<T extends Container> implements Tr
 			return null;
 		}
 
-		final int[] slots = this.slots;
 		final int limit = slots.length;
 
 		if (limit == 0) {
 			return null;
 		}
 
-		// restart position search from beginning on wrap
+		refreshIndex();
+
+		// full slots are skipped, so this only wraps when nothing is open after the cursor
 		if (proposalSlotIndex >= limit) {
 			proposalSlotIndex = 0;
 		}
 
-		ItemStack stack = inv.getItem(slots[proposalSlotIndex]);
+		int position = nextOpen(proposalSlotIndex);
 
-		if (!stack.isEmpty() && stack.getCount() >= stack.getMaxStackSize() && !canPlaceInSlot(stack, proposalSlotIndex)) {
-			if (++proposalSlotIndex < limit) {
-				stack = inv.getItem(slots[proposalSlotIndex]);
-			} else {
+		if (position < 0) {
+			position = nextOpen(0);
+
+			if (position < 0) {
 				return null;
 			}
 		}
 
-		if (stack.isEmpty() || stack.getCount() < stack.getMaxStackSize()) {
-			if (!lastProposalArticle.matches(stack)) {
-				lastProposalArticle = Article.of(stack);
-			}
-
-			return lastProposalArticle;
-		} else {
-			return null;
-		}
+		proposalSlotIndex = position;
+		final Article article = indexedArticles[position];
+		return article == null ? Article.NOTHING : article;
 	}
 
 	@Override
@@ -193,7 +362,7 @@ public abstract class InventoryStorageContext<T extends Container> implements Tr
 				stack.grow((int) count);
 			}
 
-			inv.setChanged();
+			onSlotChanged(acceptSlotIndex);
 		}
 
 		return count;
@@ -218,28 +387,34 @@ public abstract class InventoryStorageContext<T extends Container> implements Tr
 			return Article.NOTHING;
 		}
 
+		refreshIndex();
+
 		// restart position search from beginning on wrap
 		if (supplySlotIndex >= limit) {
 			supplySlotIndex = 0;
 		}
 
-		ItemStack stack = inv.getItem(slots[supplySlotIndex]);
+		for (int i = nextOccupied(supplySlotIndex); i >= 0; i = nextOccupied(i + 1)) {
+			final ItemStack stack = inv.getItem(slots[i]);
 
-		if ((stack.isEmpty() || !canExtract(stack, slots[supplySlotIndex]))) {
-			if (++supplySlotIndex < limit) {
-				stack = inv.getItem(slots[supplySlotIndex]);
-			} else {
-				return Article.NOTHING;
-			}
-		}
+			if (stack.isEmpty()) {
+				// changed since the index was built
+				indexSlot(i);
+			} else if (canExtract(stack, slots[i])) {
+				supplySlotIndex = i;
 
-		if (stack.isEmpty() || !canExtract(stack, slots[supplySlotIndex])) {
-			lastSupplyArticle = Article.NOTHING;
-		} else if (!lastSupplyArticle.matches(stack)) {
-			lastSupplyArticle = Article.of(stack);
+				if (!lastSupplyArticle.matches(stack)) {
+					lastSupplyArticle = Article.of(stack);
+				}
+
+				return lastSupplyArticle;
+			}
 		}
 
-		return lastSupplyArticle;
+		// nothing after the cursor - next call starts over
+		supplySlotIndex = limit;
+		lastSupplyArticle = Article.NOTHING;
+		return Article.NOTHING;
 	}
 
 	protected boolean canExtract(ItemStack stack, int slot) {
@@ -256,7 +431,7 @@ public abstract class InventoryStorageContext<T extends Container> implements Tr
 		final int[] slots = this.slots;
 		final int limit = slots.length;
 
-		// restart position search from beginning if different article
+		// restart position search if different article
 		if (supplySlotIndex < limit && article.equals(lastSupplyArticle)) {
 			final ItemStack stack = inv.getItem(slots[supplySlotIndex]);
 
@@ -265,13 +440,22 @@ public abstract class InventoryStorageContext<T extends Container> implements Tr
 			}
 		}
 
-		for (int i = 0; i < limit; ++i) {
-			final ItemStack stack = inv.getItem(slots[i]);
+		refreshIndex();
 
-			if (!stack.isEmpty() && article.matches(stack)) {
-				supplySlotIndex = i;
-				lastSupplyArticle = article;
-				return true;
+		final BitSet sameArticle = articleSlots.get(article);
+
+		if (sameArticle != null) {
+			for (int i = sameArticle.nextSetBit(0); i >= 0; i = sameArticle.nextSetBit(i + 1)) {
+				final ItemStack stack = inv.getItem(slots[i]);
+
+				if (!stack.isEmpty() && article.matches(stack)) {
+					supplySlotIndex = i;
+					lastSupplyArticle = article;
+					return true;
+				}
+
+				// changed since the index was built
+				indexSlot(i);
 			}
 		}
 
@@ -317,7 +501,7 @@ public abstract class InventoryStorageContext<T extends Container> implements Tr
 			inv.setItem(slots[supplySlotIndex], ItemStack.EMPTY);
 		}
 
-		inv.setChanged();
+		onSlotChanged(supplySlotIndex);
 
 		return count;
 	}
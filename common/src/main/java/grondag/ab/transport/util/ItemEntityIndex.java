@@ -0,0 +1,124 @@
+/*
+ * This file is part of Ability and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.ab.transport.util;
+
+import java.util.List;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.util.Mth;
+import net.minecraft.world.entity.Entity;
+import net.minecraft.world.entity.item.ItemEntity;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.phys.AABB;
+
+import grondag.ab.varia.WorldTaskManager;
+
+/**
+ * Item entities by block position, shared by all world-facing movers.  Each chunk section
+ * is queried at most once per tick, on first use, so cost grows with the number of sections
+ * that hold collectors instead of the number of collectors.
+ *
+ * <p>Entities added during a tick are not seen until the next tick.  Entities removed during
+ * a tick are filtered out when collected.
+ */
+public abstract class ItemEntityIndex {
+	private ItemEntityIndex() { }
+
+	/** Covers item entities that overlap a section without their origin being inside it. */
+	private static final double MARGIN = 0.5;
+
+	private static final Reference2ObjectOpenHashMap<Level, LevelIndex> LEVELS = new Reference2ObjectOpenHashMap<>();
+	private static int indexTick = -1;
+
+	/** Adds live item entities whose bounds intersect the block at the given position to the output list. */
+	public static void collect(Level level, BlockPos pos, List<? super ItemEntity> output) {
+		final int tick = WorldTaskManager.tickCounter();
+
+		if (tick != indexTick) {
+			LEVELS.clear();
+			indexTick = tick;
+		}
+
+		LEVELS.computeIfAbsent(level, l -> new LevelIndex()).collect(level, pos, output);
+	}
+
+	private static class LevelIndex {
+		private final LongOpenHashSet scannedSections = new LongOpenHashSet();
+		private final Long2ObjectOpenHashMap<ObjectArrayList<ItemEntity>> byBlock = new Long2ObjectOpenHashMap<>();
+
+		void collect(Level level, BlockPos pos, List<? super ItemEntity> output) {
+			final int sectionX = SectionPos.blockToSectionCoord(pos.getX());
+			final int sectionY = SectionPos.blockToSectionCoord(pos.getY());
+			final int sectionZ = SectionPos.blockToSectionCoord(pos.getZ());
+
+			if (scannedSections.add(SectionPos.asLong(sectionX, sectionY, sectionZ))) {
+				scan(level, sectionX, sectionY, sectionZ);
+			}
+
+			final ObjectArrayList<ItemEntity> entities = byBlock.get(pos.asLong());
+
+			if (entities != null) {
+				final int limit = entities.size();
+
+				for (int i = 0; i < limit; ++i) {
+					final ItemEntity entity = entities.get(i);
+
+					if (entity.isAlive()) {
+						output.add(entity);
+					}
+				}
+			}
+		}
+
+		private void scan(Level level, int sectionX, int sectionY, int sectionZ) {
+			final int x0 = SectionPos.sectionToBlockCoord(sectionX);
+			final int y0 = SectionPos.sectionToBlockCoord(sectionY);
+			final int z0 = SectionPos.sectionToBlockCoord(sectionZ);
+			final AABB box = new AABB(x0 - MARGIN, y0 - MARGIN, z0 - MARGIN, x0 + 16 + MARGIN, y0 + 16 + MARGIN, z0 + 16 + MARGIN);
+
+			for (final ItemEntity entity : level.getEntitiesOfClass(ItemEntity.class, box, Entity::isAlive)) {
+				final AABB bb = entity.getBoundingBox();
+
+				// blocks the entity intersects, limited to this section so neighbors do not add it twice
+				final int minX = Math.max(x0, Mth.floor(bb.minX));
+				final int minY = Math.max(y0, Mth.floor(bb.minY));
+				final int minZ = Math.max(z0, Mth.floor(bb.minZ));
+				final int maxX = Math.min(x0 + 15, Mth.ceil(bb.maxX) - 1);
+				final int maxY = Math.min(y0 + 15, Mth.ceil(bb.maxY) - 1);
+				final int maxZ = Math.min(z0 + 15, Mth.ceil(bb.maxZ) - 1);
+
+				for (int x = minX; x <= maxX; ++x) {
+					for (int y = minY; y <= maxY; ++y) {
+						for (int z = minZ; z <= maxZ; ++z) {
+							byBlock.computeIfAbsent(BlockPos.asLong(x, y, z), k -> new ObjectArrayList<>()).add(entity);
+						}
+					}
+				}
+			}
+		}
+	}
+}
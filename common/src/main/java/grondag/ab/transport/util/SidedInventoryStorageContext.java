@@ -50,7 +50,7 @@ public abstract class SidedInventoryStorageContext extends InventoryStorageConte
 
 	@Override
 	protected boolean canPlaceInSlot(Article article, int slot) {
-		return inventory.canPlaceItemThroughFace(slot, article.toStack(), targetFace);
+		return inventory.canPlaceItemThroughFace(slot, probeStack(article), targetFace);
 	}
 
 	@Override
@@ -22,7 +22,6 @@ package grondag.ab.transport.util;
 
 import java.util.Random;
 
-import com.google.common.base.Predicates;
 import io.netty.util.internal.ThreadLocalRandom;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 
@@ -44,7 +43,6 @@ import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.material.Fluid;
 import net.minecraft.world.level.material.FluidState;
 import net.minecraft.world.level.material.Fluids;
-import net.minecraft.world.phys.AABB;
 
 import grondag.ab.AbilityConfig;
 import grondag.fluidity.api.article.Article;
@@ -67,9 +65,15 @@ public abstract class WorldStorageContext implements TransportStorageContext {
 	ItemEntity entity = null;
 	boolean canDropItems = false;
 	boolean canPlaceFluid = false;
-	AABB bounds = null;
 	final ObjectArrayList<Entity> entityList = new ObjectArrayList<>();
 	protected boolean drainable = false;
+	/** Block that fluid supply will drain.  The target block unless the area pump chose another. */
+	protected BlockPos drainPos;
+	protected BlockState drainState;
+	protected Block drainBlock;
+	/** True when fluid is served from an infinite source found by the area pump, without draining. */
+	protected boolean isInfiniteDrain = false;
+	protected final AreaPump areaPump = new AreaPump();
 	protected boolean fillable = false;
 	protected int fluidCooldownTicks = FLUID_COOLDOWN_TICKS;
 
@@ -81,8 +85,8 @@ public abstract class WorldStorageContext implements TransportStorageContext {
 		canPlaceFluid = false;
 		drainable = false;
 		fillable = false;
+		isInfiniteDrain = false;
 
-		final BlockPos oldPos = pos;
 		pos = pos();
 		world = world();
 
@@ -90,10 +94,6 @@ public abstract class WorldStorageContext implements TransportStorageContext {
 			return true;
 		}
 
-		if (pos != oldPos) {
-			bounds = new AABB(pos);
-		}
-
 		final BlockState state = world.getBlockState(pos);
 		blockState = state;
 		final Block block = state.getBlock();
@@ -111,28 +111,72 @@ public abstract class WorldStorageContext implements TransportStorageContext {
 					canPlaceFluid = true;
 					fillable = true;
 				}
+			} else if (AbilityConfig.areaPumpRange > 0 && block instanceof LiquidBlock) {
+				prepareAreaDrain(worldFluid);
 			} else if (worldFluid.isSource(fluidState)) {
-				if (block instanceof LiquidBlock) {
-					fluid = worldFluid;
-					drainable = false;
-				} else if (block instanceof BucketPickup) {
-					fluid = worldFluid;
-					drainable = true;
-				}
+				setDrain(pos, state, worldFluid);
 			}
 		}
 
 		canDropItems = !state.isCollisionShapeFullBlock(world, pos);
 
 		entityList.clear();
-		// PERF: avoid letting vanilla allocate new list each time
-		entityList.addAll(world.getEntitiesOfClass(ItemEntity.class, bounds, Predicates.alwaysTrue()));
+		ItemEntityIndex.collect(world, pos, entityList);
 		entity = entityList.isEmpty() ? null : (ItemEntity) entityList.get(0);
 		stack = entity == null ? null : entity.getItem();
 
 		return true;
 	}
 
+	protected void setDrain(BlockPos drainPos, BlockState drainState, Fluid worldFluid) {
+		final Block drainBlock = drainState.getBlock();
+
+		if (drainBlock instanceof LiquidBlock) {
+			fluid = worldFluid;
+			drainable = false;
+		} else if (drainBlock instanceof BucketPickup) {
+			fluid = worldFluid;
+			drainable = true;
+		} else {
+			return;
+		}
+
+		this.drainPos = drainPos;
+		this.drainState = drainState;
+		this.drainBlock = drainBlock;
+	}
+
+	/**
+	 * Chooses a source from the connected body of fluid in front, or starts a scan to find them.
+	 * Nothing is drained while a scan is running.
+	 */
+	protected void prepareAreaDrain(Fluid worldFluid) {
+		if (!areaPump.isFor(worldFluid)) {
+			areaPump.start(world, pos, worldFluid, Math.min(32, AbilityConfig.areaPumpRange));
+			return;
+		}
+
+		if (areaPump.isScanning()) {
+			return;
+		}
+
+		if (areaPump.isInfinite()) {
+			fluid = worldFluid;
+			isInfiniteDrain = true;
+			return;
+		}
+
+		final BlockPos source = areaPump.nextSource();
+
+		if (source == null) {
+			// body is drained or out of reach - look again after a full cooldown
+			areaPump.start(world, pos, worldFluid, Math.min(32, AbilityConfig.areaPumpRange));
+			fluidCooldownTicks = FLUID_COOLDOWN_TICKS;
+		} else {
+			setDrain(source, world.getBlockState(source), worldFluid);
+		}
+	}
+
 	@Override
 	public boolean canAccept(Article article) {
 		return (canPlaceFluid && article.isFluid()) || (canDropItems && article.isItem());
@@ -318,8 +362,11 @@ public abstract class WorldStorageContext implements TransportStorageContext {
 
 		if (article.isFluid()) {
 			if (fluid != null && article.toFluid().equals(fluid)) {
-				if (drainable) {
-					final ItemStack result = ((BucketPickup) block).pickupBlock(world, pos, blockState);
+				if (isInfiniteDrain) {
+					fluidCooldownTicks = FLUID_COOLDOWN_TICKS;
+					return 1;
+				} else if (drainable) {
+					final ItemStack result = ((BucketPickup) drainBlock).pickupBlock(world, drainPos, drainState);
 
 					if (!result.isEmpty()) {
 						fluidCooldownTicks = FLUID_COOLDOWN_TICKS;
@@ -328,7 +375,7 @@ public abstract class WorldStorageContext implements TransportStorageContext {
 						return 0;
 					}
 				} else {
-					world.setBlockAndUpdate(pos, Blocks.AIR.defaultBlockState());
+					world.setBlockAndUpdate(drainPos, Blocks.AIR.defaultBlockState());
 					fluidCooldownTicks = FLUID_COOLDOWN_TICKS;
 					return 1;
 				}
@@ -20,21 +20,101 @@
 
 package grondag.ab.varia;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import net.minecraft.world.level.Level;
+
+import grondag.ab.Ability;
+import grondag.ab.AbilityConfig;
 
-// PERF: throttle performance based on elapsed time instead of number of operations
 /**
- * Maintains a queue of tasks that require world access and executes them in
- * FIFO order.
+ * Maintains queues of tasks that require world access and executes them in
+ * FIFO order within each {@link Priority}, higher priorities first.
+ *
+ * <p>Tasks for a level are queued with that level and run during its tick, each
+ * level with its own time budget, so a burst in one dimension does not delay
+ * another and levels with nothing queued cost nothing.  Tasks without a level run
+ * at the end of the server tick.
  *
  * <p>Ensures that all world access is synchronized, in-order, and does not exceed
- * the configured threshold for points per tick.
+ * the configured time budget per tick.  Work left when the budget runs out carries
+ * over to the next tick.  Every class with pending work gets at least one step
+ * per tick so that lower priorities cannot starve.
+ *
+ * <p>{@link AsyncTask}s split expensive pure work from its effect on the world: the
+ * compute step runs on a small worker pool and the apply step is queued back to the
+ * level like any other task.
  *
  * <p>Tasks are not serialized or persisted - queue must be rebuilt by task
  * providers on world reload.
  */
 public class WorldTaskManager {
+	/** Work classes, served in declaration order. */
+	public enum Priority {
+		/** Carrier and multiblock membership changes. */
+		TOPOLOGY,
+		/** Refreshes of cached neighbor references. */
+		NEIGHBOR,
+		/** Long-running world scans and edits. */
+		BULK
+	}
+
+	private static final Priority[] PRIORITIES = Priority.values();
+
+	/**
+	 * Two-phase task.  Capture an immutable snapshot of the input when the task is created,
+	 * on the server thread.  {@link #compute()} then runs on a worker thread and must read
+	 * only that snapshot.  {@link #apply(Object)} runs on the server thread during the
+	 * level's tick, and only if {@link #isCurrent()} still holds.
+	 */
+	public interface AsyncTask<R> {
+		/** Runs on a worker thread.  Must not touch the world or other mutable game state. */
+		R compute();
+
+		/** Runs on the server thread before apply.  Return false if the snapshot no longer matches the world. */
+		default boolean isCurrent() {
+			return true;
+		}
+
+		/** Runs on the server thread with the computed result. */
+		void apply(R result);
+	}
+
+	private static final int WORKER_COUNT = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+	private static final AtomicInteger workerIndex = new AtomicInteger();
+
+	/** Bounded pool.  When its queue is full the submitting thread computes the task itself. */
+	private static final ThreadPoolExecutor WORKERS = new ThreadPoolExecutor(WORKER_COUNT, WORKER_COUNT, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(256), r -> {
+		final Thread thread = new Thread(r, "Ability Worker " + workerIndex.incrementAndGet());
+		thread.setDaemon(true);
+		thread.setPriority(Thread.NORM_PRIORITY - 1);
+		return thread;
+	}, new ThreadPoolExecutor.CallerRunsPolicy());
+
+	static {
+		WORKERS.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Apply steps whose compute finished, waiting to be queued by the server thread.  Workers never
+	 * queue on a level directly, so a level that unloads mid-compute cannot be handed new work.
+	 */
+	private static final ConcurrentLinkedQueue<Runnable> COMPUTED = new ConcurrentLinkedQueue<>();
+
+	private static final AtomicInteger asyncPending = new AtomicInteger();
+	private static final AtomicLong asyncApplied = new AtomicLong();
+	private static final AtomicLong asyncStale = new AtomicLong();
+	private static final AtomicLong asyncFailed = new AtomicLong();
+
 	private static int tickCounter = 0;
 
 	/** Monotonic increasing integer - incremented each tick.  May be more convenient than world time. */
@@ -42,56 +122,272 @@ public class WorldTaskManager {
 		return tickCounter;
 	}
 
-	/**
-	 * Metered tasks - run based on budget consumption until drained.
-	 */
-	private static ConcurrentLinkedQueue<BooleanSupplier> tasks = new ConcurrentLinkedQueue<>();
+	private static final AtomicInteger[] pending = new AtomicInteger[PRIORITIES.length];
+	private static final long[] steps = new long[PRIORITIES.length];
+	private static final long[] completed = new long[PRIORITIES.length];
+	private static final long[] nanos = new long[PRIORITIES.length];
 
-	/**
-	 * Immediate tasks - queue is fully drained each tick.
-	 */
-	private static ConcurrentLinkedQueue<Runnable> immediateTasks = new ConcurrentLinkedQueue<>();
+	static {
+		for (int i = 0; i < PRIORITIES.length; ++i) {
+			pending[i] = new AtomicInteger();
+		}
+	}
+
+	/** One set of priority queues, either global or for a single level. */
+	private static class TaskQueues {
+		/**
+		 * Tasks by priority.  A task returning true has done one step of work and
+		 * stays at the head of its queue.  Returning false removes it.
+		 */
+		@SuppressWarnings("unchecked")
+		private final ConcurrentLinkedQueue<BooleanSupplier>[] tasks = new ConcurrentLinkedQueue[PRIORITIES.length];
+
+		/** Tasks queued by {@link WorldTaskManager#enqueueOnce(Level, Priority, Runnable)} and not yet started. */
+		private final Set<Runnable> queuedOnce = ConcurrentHashMap.newKeySet();
+
+		private final AtomicInteger size = new AtomicInteger();
+
+		private TaskQueues() {
+			for (int i = 0; i < PRIORITIES.length; ++i) {
+				tasks[i] = new ConcurrentLinkedQueue<>();
+			}
+		}
+
+		private void offer(Priority priority, BooleanSupplier task) {
+			size.incrementAndGet();
+			pending[priority.ordinal()].incrementAndGet();
+			tasks[priority.ordinal()].offer(task);
+		}
+
+		private void clear() {
+			for (int i = 0; i < PRIORITIES.length; ++i) {
+				final int removed = tasks[i].size();
+				tasks[i].clear();
+				pending[i].addAndGet(-removed);
+				size.addAndGet(-removed);
+			}
+
+			queuedOnce.clear();
+		}
+
+		private void run() {
+			if (size.get() == 0) {
+				return;
+			}
+
+			final long start = System.nanoTime();
+			final long deadline = start + AbilityConfig.taskBudgetMicros * 1000L;
+			long now = start;
+
+			for (int i = 0; i < PRIORITIES.length; ++i) {
+				final ConcurrentLinkedQueue<BooleanSupplier> queue = tasks[i];
+				final long classStart = now;
+				BooleanSupplier task = queue.peek();
+
+				// first step always runs so each class makes progress
+				boolean isFirst = true;
+
+				while (task != null && (isFirst || now < deadline)) {
+					isFirst = false;
+					++steps[i];
+
+					if (!task.getAsBoolean()) {
+						queue.poll();
+						size.decrementAndGet();
+						pending[i].decrementAndGet();
+						++completed[i];
+						task = queue.peek();
+					}
+
+					now = System.nanoTime();
+				}
+
+				nanos[i] += now - classStart;
+			}
+		}
+	}
+
+	private static final TaskQueues GLOBAL = new TaskQueues();
+	private static final ConcurrentHashMap<Level, TaskQueues> LEVELS = new ConcurrentHashMap<>();
+
+	private static TaskQueues queues(Level level) {
+		return LEVELS.computeIfAbsent(level, l -> new TaskQueues());
+	}
 
 	public static void clear() {
-		tasks.clear();
+		GLOBAL.clear();
+		COMPUTED.clear();
+		LEVELS.values().forEach(TaskQueues::clear);
+		LEVELS.clear();
+	}
+
+	/** Drops tasks for a level that is unloading. */
+	public static void onLevelUnload(Level level) {
+		final TaskQueues queues = LEVELS.remove(level);
+
+		if (queues != null) {
+			queues.clear();
+		}
 	}
 
 	public static void doServerTick() {
 		++tickCounter;
+		drainComputed();
+		GLOBAL.run();
+	}
 
-		while (!immediateTasks.isEmpty()) {
-			final Runnable r = immediateTasks.poll();
-			r.run();
-		}
+	/** Queues finished async results on their levels.  Runs on the server thread, same as level unload. */
+	private static void drainComputed() {
+		Runnable handoff;
 
-		if (tasks.isEmpty()) {
-			return;
+		while ((handoff = COMPUTED.poll()) != null) {
+			handoff.run();
 		}
+	}
 
-		//TODO: remove or make configurable
-		int operations = 64; //XmConfig.EXECUTION.maxQueuedWorldOperationsPerTick;
-
-		BooleanSupplier task = tasks.peek();
+	/** Runs tasks queued for the level.  Call after the level ticks. */
+	public static void doLevelTick(Level level) {
+		final TaskQueues queues = LEVELS.get(level);
 
-		while (operations > 0 && task != null) {
-			// check for canceled tasks and move to next if checked
-			if (task.getAsBoolean()) {
-				operations--;
-			} else {
-				tasks.poll();
-				task = tasks.peek();
-			}
+		if (queues != null) {
+			queues.run();
 		}
 	}
 
+	/** Adds a metered task at {@link Priority#BULK} that runs at the end of the server tick. */
 	public static void enqueue(BooleanSupplier task) {
-		tasks.offer(task);
+		GLOBAL.offer(Priority.BULK, task);
+	}
+
+	/**
+	 * Adds a task that runs in steps during the level's tick until it returns false.
+	 * Each call should do a small, bounded amount of work so the tick budget is respected.
+	 */
+	public static void enqueue(Level level, Priority priority, BooleanSupplier task) {
+		queues(level).offer(priority, task);
 	}
 
 	/**
 	 * Use for short-running operations that should run on next tick.
+	 * Runs at {@link Priority#NEIGHBOR} at the end of the server tick.
 	 */
 	public static void enqueueImmediate(Runnable task) {
-		immediateTasks.offer(task);
+		GLOBAL.offer(Priority.NEIGHBOR, () -> {
+			task.run();
+			return false;
+		});
+	}
+
+	/** Short-running operation, run once during the level's tick as budget allows - usually the next. */
+	public static void enqueueImmediate(Level level, Priority priority, Runnable task) {
+		queues(level).offer(priority, () -> {
+			task.run();
+			return false;
+		});
+	}
+
+	/**
+	 * Like {@link #enqueueImmediate(Level, Priority, Runnable)} but does nothing if the same
+	 * task instance is already queued and has not started.  Callers should keep the task in a
+	 * field, because each method reference is a new instance.  A request made while the
+	 * task runs queues it again.
+	 */
+	public static void enqueueOnce(Level level, Priority priority, Runnable task) {
+		final TaskQueues queues = queues(level);
+
+		if (queues.queuedOnce.add(task)) {
+			queues.offer(priority, () -> {
+				queues.queuedOnce.remove(task);
+				task.run();
+				return false;
+			});
+		}
+	}
+
+	/**
+	 * Computes the task off-thread and then applies it during the level's tick at the given
+	 * priority.  Results are dropped if the level unloads first, if {@link AsyncTask#isCurrent()}
+	 * fails, or if compute throws.
+	 */
+	public static <R> void enqueueAsync(Level level, Priority priority, AsyncTask<R> task) {
+		// resolve on this thread so a worker never recreates queues for an unloaded level
+		final TaskQueues queues = queues(level);
+		asyncPending.incrementAndGet();
+
+		final Consumer<R> handoff = result -> {
+			// level unloaded while computing - its queues are gone and must not count new work
+			if (LEVELS.get(level) != queues) {
+				asyncStale.incrementAndGet();
+				return;
+			}
+
+			queues.offer(priority, () -> {
+				if (task.isCurrent()) {
+					task.apply(result);
+					asyncApplied.incrementAndGet();
+				} else {
+					asyncStale.incrementAndGet();
+				}
+
+				return false;
+			});
+		};
+
+		WORKERS.execute(() -> {
+			final R result;
+
+			try {
+				result = task.compute();
+			} catch (final Throwable e) {
+				asyncPending.decrementAndGet();
+				asyncFailed.incrementAndGet();
+				Ability.LOG.error("Exception in asynchronous world task", e);
+				return;
+			}
+
+			// once handed off the apply step is counted with its priority class, or dropped
+			asyncPending.decrementAndGet();
+			COMPUTED.offer(() -> handoff.accept(result));
+		});
+	}
+
+	/** Async tasks still computing.  Apply steps waiting to run are counted by {@link #pending(Priority)}. */
+	public static int asyncPending() {
+		return asyncPending.get();
+	}
+
+	/** Async results applied since startup. */
+	public static long asyncApplied() {
+		return asyncApplied.get();
+	}
+
+	/** Async results dropped as stale since startup. */
+	public static long asyncStale() {
+		return asyncStale.get();
+	}
+
+	/** Async computations that threw since startup. */
+	public static long asyncFailed() {
+		return asyncFailed.get();
+	}
+
+	/** Tasks waiting or in progress in the given class, across all levels. */
+	public static int pending(Priority priority) {
+		return pending[priority.ordinal()].get();
+	}
+
+	/** Task steps run in the given class since startup. */
+	public static long steps(Priority priority) {
+		return steps[priority.ordinal()];
+	}
+
+	/** Tasks finished in the given class since startup. */
+	public static long completed(Priority priority) {
+		return completed[priority.ordinal()];
+	}
+
+	/** Nanoseconds spent running tasks in the given class since startup. */
+	public static long nanos(Priority priority) {
+		return nanos[priority.ordinal()];
 	}
 }
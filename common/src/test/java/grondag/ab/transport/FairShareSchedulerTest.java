@@ -0,0 +1,105 @@
+/*
+ * This file is part of Ability and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.ab.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+
+import grondag.ab.AbilityConfig;
+import grondag.fluidity.api.article.ArticleType;
+
+class FairShareSchedulerTest {
+	private static final int BUDGET = 4;
+	private static final int SESSIONS = 40;
+	private static final int TICKS = 200;
+
+	@BeforeAll
+	static void bootstrap() {
+		SharedConstants.tryDetectVersion();
+		Bootstrap.bootStrap();
+	}
+
+	@Test
+	void everySessionProgressesWhenSessionsOutnumberBudget() {
+		final UniversalTransportBus bus = new UniversalTransportBus(1, () -> BUDGET, 1);
+		final boolean wasFairShare = AbilityConfig.fairShareBandwidth;
+		AbilityConfig.fairShareBandwidth = true;
+		final UtbCostFunction cost;
+
+		try {
+			cost = new UtbCostFunction(bus);
+		} finally {
+			AbilityConfig.fairShareBandwidth = wasFairShare;
+		}
+
+		final BandwidthShare[] shares = new BandwidthShare[SESSIONS];
+		final long[] moved = new long[SESSIONS];
+
+		for (int i = 0; i < SESSIONS; ++i) {
+			shares[i] = new BandwidthShare();
+		}
+
+		long total = 0;
+
+		for (int tick = 1; tick <= TICKS; ++tick) {
+			cost.refresh(tick);
+
+			// sessions always ask in the same order, which starves the tail under a per-tick quantum
+			for (int i = 0; i < SESSIONS; ++i) {
+				if (cost.scheduler.shouldTransmit(shares[i])) {
+					final long granted = cost.grant(shares[i], false, 64, false);
+					moved[i] += granted;
+					total += granted;
+				}
+			}
+		}
+
+		assertTrue(total <= (long) BUDGET * TICKS, "network budget exceeded");
+
+		// each session's fair share is BUDGET * TICKS / SESSIONS; allow for rounding and the first ticks
+		final long fairShare = (long) BUDGET * TICKS / SESSIONS;
+
+		for (int i = 0; i < SESSIONS; ++i) {
+			assertTrue(moved[i] >= fairShare / 2, "session " + i + " moved only " + moved[i]);
+		}
+	}
+
+	@Test
+	void rollbackReturnsCharges() {
+		final UniversalTransportBus bus = new UniversalTransportBus(1, () -> BUDGET, 1);
+		final FairShareScheduler scheduler = new FairShareScheduler(bus);
+		final BandwidthShare share = new BandwidthShare();
+
+		scheduler.startTick(1);
+		final long before = scheduler.limit(share, ArticleType.ITEM, 64);
+		final int state = scheduler.rollbackState();
+		scheduler.charge(share, ArticleType.ITEM, before);
+		assertEquals(0, scheduler.limit(share, ArticleType.ITEM, 64));
+		scheduler.restoreState(state);
+		assertEquals(before, scheduler.limit(share, ArticleType.ITEM, 64));
+	}
+}
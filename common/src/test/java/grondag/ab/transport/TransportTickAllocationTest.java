@@ -0,0 +1,142 @@
+/*
+ * This file is part of Ability and is licensed to the project under
+ * terms that are compatible with the GNU Lesser General Public License.
+ * See the NOTICE file distributed with this work for additional information
+ * regarding copyright ownership and licensing.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package grondag.ab.transport;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.level.material.Fluids;
+
+import grondag.ab.AbilityConfig;
+import grondag.fluidity.api.article.Article;
+import grondag.fluidity.api.article.ArticleType;
+
+/**
+ * Guards the steady-state transport tick against per-tick garbage.  Drives the
+ * scheduler, cost function and census the way a busy network does, then checks
+ * that further ticks allocate nothing on this thread.
+ */
+class TransportTickAllocationTest {
+	private static final int SESSIONS = 16;
+	private static final int WARMUP_TICKS = 20000;
+	private static final int MEASURED_TICKS = 10000;
+	/** Slack for the measurement itself. Far less than one allocation per tick. */
+	private static final long ALLOWED_BYTES = 1024;
+
+	@BeforeAll
+	static void bootstrap() {
+		SharedConstants.tryDetectVersion();
+		Bootstrap.bootStrap();
+	}
+
+	private UtbCostFunction cost;
+	private final UtbArticleCensus census = new UtbArticleCensus();
+	private final BandwidthShare[] shares = new BandwidthShare[SESSIONS];
+	private Article[] articles;
+	private Article itemCursor = Article.NOTHING;
+	private Article fluidCursor = Article.NOTHING;
+	private long sink = 0;
+
+	@Test
+	void steadyStateTickDoesNotAllocate() {
+		final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+
+		final boolean wasFairShare = AbilityConfig.fairShareBandwidth;
+		AbilityConfig.fairShareBandwidth = true;
+
+		try {
+			cost = new UtbCostFunction(new UniversalTransportBus(1, () -> 8, 1));
+		} finally {
+			AbilityConfig.fairShareBandwidth = wasFairShare;
+		}
+
+		articles = new Article[] {
+			Article.of(new ItemStack(Items.STONE)),
+			Article.of(new ItemStack(Items.DIRT)),
+			Article.of(new ItemStack(Items.OAK_LOG)),
+			Article.of(Fluids.WATER),
+			Article.of(Fluids.LAVA),
+		};
+
+		for (int i = 0; i < SESSIONS; ++i) {
+			shares[i] = new BandwidthShare();
+			shares[i].weight = 1 + (i & 3);
+		}
+
+		int tick = 1;
+
+		for (int i = 0; i < WARMUP_TICKS; ++i) {
+			tick(tick++);
+		}
+
+		final long threadId = Thread.currentThread().getId();
+		final long before = threads.getThreadAllocatedBytes(threadId);
+
+		for (int i = 0; i < MEASURED_TICKS; ++i) {
+			tick(tick++);
+		}
+
+		final long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+		assertTrue(allocated <= ALLOWED_BYTES, "steady-state ticks allocated " + allocated + " bytes");
+		assertTrue(sink != 0);
+	}
+
+	private void tick(int tick) {
+		cost.refresh(tick);
+
+		for (int i = 0; i < SESSIONS; ++i) {
+			final BandwidthShare share = shares[i];
+
+			if (!cost.scheduler.shouldTransmit(share)) {
+				continue;
+			}
+
+			final int state = cost.scheduler.rollbackState();
+			final long items = cost.grant(share, false, 4, false);
+			final long fluid = cost.grant(share, true, 1, false);
+
+			// every fourth request is abandoned, as a failed transaction would be
+			if (((tick + i) & 3) == 0) {
+				cost.scheduler.restoreState(state);
+			}
+
+			sink += items + fluid;
+		}
+
+		// suppliers publish and retract, so articles enter and leave the census
+		final Article article = articles[tick % articles.length];
+		census.add(article, (tick & 1) == 0 ? 64 : -64);
+		itemCursor = census.next(ArticleType.ITEM, itemCursor);
+		fluidCursor = census.next(ArticleType.FLUID, fluidCursor);
+		sink += census.quantityOf(articles[0]) + (census.hasAny(ArticleType.FLUID) ? 1 : 0);
+	}
+}